@@ -1,6 +1,21 @@
 package me.mthai;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Created by mt on 1/4/2016.
@@ -8,10 +23,13 @@ import java.util.Arrays;
 public class MTArrayList<E> {
     static final int DEFAULT_CAPACITY = 10;
     static final Object[] EMPTY = {};
+    static final int MIN_PARALLEL_CHUNK = 1 << 12; // smaller ranges are not worth a task
 
     Object[] data;
     int size;
 
+    private Metrics metrics; // null: not measured
+
     public MTArrayList() {
         data = EMPTY;
     }
@@ -30,28 +48,71 @@ public class MTArrayList<E> {
         size++;
     }
 
-    public void remove(Object o) {
-        if(o == null) {
-            for(int i = 0; i < size; ++i) {
-                if(null == data[i]) {
-                    fastRemove(i);
-                }
+    /**
+     * Remove every occurrence of o
+     * @return false if o does not exist
+     */
+    public boolean remove(Object o) {
+        if(o == null)
+            return removeIf(e -> e == null);
+        return removeIf(e -> o == e || o.equals(e));
+    }
+
+    /**
+     * Keep the elements that don't match in one pass: each one is moved
+     * at most once, instead of shifting the tail for every removal
+     * @return true if anything was removed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super E> filter) {
+        int w = 0, r = 0, oldSize = size;
+        try {
+            for(; r < oldSize; ++r) {
+                Object e = data[r];
+                if(!filter.test((E)e))
+                    data[w++] = e;
             }
         }
-        else {
-            for(int i = 0; i < size; ++i) {
-                if(o == data[i] || o.equals(data[i])) {
-                    fastRemove(i);
-                }
+        finally {
+            // If filter threw, keep everything it has not looked at yet,
+            // the removals so far still count
+            if(r < oldSize) {
+                System.arraycopy(data, r, data, w, oldSize - r);
+                w += oldSize - r;
             }
+            for(int i = w; i < oldSize; ++i)
+                data[i] = null;
+            size = w;
         }
+        return w != oldSize;
+    }
+
+    /**
+     * @return true if anything was removed
+     */
+    public boolean removeAll(Collection<?> c) {
+        return removeIf(c::contains);
     }
 
-    private void fastRemove(int index) {
-        int toMove = size - index - 1;
-        if(toMove > 0)
-            System.arraycopy(data, index + 1, data, index, toMove);
-        data[--size] = null;
+    /**
+     * Remove everything that is not in c
+     * @return true if anything was removed
+     */
+    public boolean retainAll(Collection<?> c) {
+        return removeIf(e -> !c.contains(e));
+    }
+
+    /**
+     * Remove elements from index from (inclusive) to index to (exclusive)
+     */
+    public void removeRange(int from, int to) {
+        if(from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("from = " + from + ", to = " + to + ", size = " + size);
+        System.arraycopy(data, to, data, from, size - to);
+        int newSize = size - (to - from);
+        for(int i = newSize; i < size; ++i)
+            data[i] = null;
+        size = newSize;
     }
 
     public void clear() {
@@ -60,6 +121,60 @@ public class MTArrayList<E> {
         size = 0;
     }
 
+    /**
+     * Sort with Arrays.parallelSort, which merges sorted pieces of data
+     * in the fork/join common pool. Stable.
+     */
+    @SuppressWarnings("unchecked")
+    public void parallelSort(Comparator<? super E> c) {
+        Arrays.parallelSort((E[])data, 0, size, c);
+    }
+
+    /**
+     * Run action on every element, on ranges of data split between the
+     * threads of the fork/join common pool. No order is guaranteed.
+     */
+    public void parallelForEach(Consumer<? super E> action) {
+        ForkJoinPool.commonPool().invoke(new ForEachTask<>(data, 0, size, chunkSize(), action));
+    }
+
+    /**
+     * Like Stream.reduce: every range is folded with accumulator starting
+     * from identity, then the results are combined in order
+     */
+    public <R> R parallelReduce(R identity, BiFunction<R, ? super E, R> accumulator, BinaryOperator<R> combiner) {
+        return ForkJoinPool.commonPool().invoke(
+                new ReduceTask<>(data, 0, size, chunkSize(), identity, accumulator, combiner));
+    }
+
+    public E parallelReduce(E identity, BinaryOperator<E> op) {
+        return parallelReduce(identity, op, op);
+    }
+
+    /**
+     * Splits data by index ranges, nothing is copied. The list must not
+     * be changed while it is being used.
+     */
+    public Spliterator<E> spliterator() {
+        return new ArraySpliterator<>(data, 0, size);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * About 4 ranges per thread so that a slow range can be balanced
+     */
+    private int chunkSize() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(MIN_PARALLEL_CHUNK, size / (parallelism << 2));
+    }
+
     private void ensureCapacity(int minCapacity) {
         if(data == EMPTY) {
             minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
@@ -70,13 +185,27 @@ public class MTArrayList<E> {
     }
 
     private void grow(int minCapacity) {
+        long start = (metrics != null) ? System.nanoTime() : 0;
         int oldCap = data.length;
         int newCap = oldCap + (oldCap >> 1); // grows with the rate of 1.5
         if(newCap - minCapacity < 0)
             newCap = minCapacity;
         data = Arrays.copyOf(data, newCap);
 
-        console.log("grows to " + newCap);
+        if(metrics != null)
+            metrics.grew(size, System.nanoTime() - start);
+    }
+
+    /**
+     * Start recording into m, which can be shared by several lists.
+     * null stops recording.
+     */
+    public void setMetrics(Metrics m) {
+        metrics = m;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
     }
 
     private void rangeCheck(int index) {
@@ -91,6 +220,177 @@ public class MTArrayList<E> {
             sb.append(data[i]).append(i == size - 1 ? "" : ", ");
         return sb.toString();
     }
-}
 
+    static class ArraySpliterator<E> implements Spliterator<E> {
+        private final Object[] data;
+        private int index; // next element
+        private final int end;
+
+        ArraySpliterator(Object[] data, int from, int to) {
+            this.data = data;
+            this.index = from;
+            this.end = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if(index >= end)
+                return false;
+            action.accept((E)data[index++]);
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            for(; index < end; ++index)
+                action.accept((E)data[index]);
+        }
+
+        /**
+         * Give away the first half
+         */
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = (index + end) >>> 1;
+            if(mid <= index)
+                return null;
+            Spliterator<E> first = new ArraySpliterator<>(data, index, mid);
+            index = mid;
+            return first;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+
+    static class ForEachTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Object[] data;
+        final int from, to, chunk;
+        final Consumer<? super E> action;
+
+        ForEachTask(Object[] data, int from, int to, int chunk, Consumer<? super E> action) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.action = action;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if(to - from <= chunk) {
+                for(int i = from; i < to; ++i)
+                    action.accept((E)data[i]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForEachTask<>(data, from, mid, chunk, action),
+                      new ForEachTask<>(data, mid, to, chunk, action));
+        }
+    }
+
+    static class ReduceTask<E,R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        final Object[] data;
+        final int from, to, chunk;
+        final R identity;
+        final BiFunction<R, ? super E, R> accumulator;
+        final BinaryOperator<R> combiner;
+
+        ReduceTask(Object[] data, int from, int to, int chunk, R identity,
+                   BiFunction<R, ? super E, R> accumulator, BinaryOperator<R> combiner) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected R compute() {
+            if(to - from <= chunk) {
+                R rs = identity;
+                for(int i = from; i < to; ++i)
+                    rs = accumulator.apply(rs, (E)data[i]);
+                return rs;
+            }
+            int mid = (from + to) >>> 1;
+            ReduceTask<E,R> left = new ReduceTask<>(data, from, mid, chunk, identity, accumulator, combiner);
+            left.fork();
+            R right = new ReduceTask<>(data, mid, to, chunk, identity, accumulator, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+
+    public interface MetricsMXBean {
+        long getGrows();
+        long getCopiedElements();
+        long getGrowNanos();
+    }
+
+    /**
+     * What growing has cost: how many times, how many elements were copied
+     * and how long it took. Plain fields, so readers on other threads
+     * (e.g. JMX) may see slightly old values.
+     */
+    public static class Metrics implements MetricsMXBean {
+        long grows, copiedElements, growNanos;
+
+        void grew(int copied, long nanos) {
+            grows++;
+            copiedElements += copied;
+            growNanos += nanos;
+        }
+
+        @Override
+        public long getGrows() {
+            return grows;
+        }
+
+        @Override
+        public long getCopiedElements() {
+            return copiedElements;
+        }
 
+        @Override
+        public long getGrowNanos() {
+            return growNanos;
+        }
+
+        /**
+         * Publish these counters as me.mthai:type=MTArrayList,name=...
+         * on the platform MBean server
+         */
+        public ObjectName register(String name) {
+            try {
+                ObjectName on = new ObjectName("me.mthai:type=MTArrayList,name=" + ObjectName.quote(name));
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+                return on;
+            }
+            catch(JMException e) {
+                throw new IllegalArgumentException("Cannot register " + name, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{grows=%d, copiedElements=%d, growNanos=%d}", grows, copiedElements, growNanos);
+        }
+    }
+}
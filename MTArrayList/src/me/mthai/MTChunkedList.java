@@ -0,0 +1,276 @@
+package me.mthai;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * MTArrayList split into chunks of k elements (a tiered vector). Every
+ * chunk is a small circular buffer and all chunks but the last are full,
+ * so element i is in chunk i / k and get stays O(1).
+ *
+ * Inserting at i shifts only the rest of its own chunk, O(k). The chunk
+ * then overflows by one element, which goes to the front of the next chunk,
+ * and so on until the last chunk. Adding to the front of a circular buffer
+ * is O(1), so that ripple costs O(n / k). k is kept around sqrt(n), so a
+ * random insert or removal costs O(sqrt n) instead of O(n).
+ * References:
+ * - Tiered Vectors: Efficient Dynamic Arrays for Rank-Based Sequences (Goodrich, Kloss)
+ */
+public class MTChunkedList<E> {
+    static final int MIN_SHIFT = 4; // chunks of at least 16 elements
+
+    Object[][] chunks = new Object[0][];
+    int[] heads = new int[0]; // index of the first element in each chunk
+    int shift = MIN_SHIFT; // k = 1 << shift
+    int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void add(E e) {
+        add(size, e);
+    }
+
+    public void add(int index, E e) {
+        rangeCheckForAdd(index);
+
+        int k = 1 << shift;
+        if(size == chunkCount() << shift)
+            addChunk();
+
+        int c = index >>> shift, pos = index & (k - 1);
+        Object carry = e;
+        for(int last = size >>> shift; ; ++c, pos = 0) {
+            if(c == last) { // not full, room for one more
+                insertInChunk(c, pos, size & (k - 1), carry);
+                break;
+            }
+            carry = insertInFullChunk(c, pos, carry);
+        }
+        size++;
+
+        if(size > (2 << shift) << shift) // more than 2k chunks
+            rechunk(shift + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        rangeCheck(index);
+        int c = index >>> shift, mask = (1 << shift) - 1;
+        return (E)chunks[c][(heads[c] + index) & mask];
+    }
+
+    /**
+     * @return the previous element
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E e) {
+        rangeCheck(index);
+        int c = index >>> shift, mask = (1 << shift) - 1;
+        int i = (heads[c] + index) & mask;
+        E old = (E)chunks[c][i];
+        chunks[c][i] = e;
+        return old;
+    }
+
+    /**
+     * @return the removed element
+     */
+    public E remove(int index) {
+        E old = get(index);
+
+        int k = 1 << shift, mask = k - 1;
+        int c = index >>> shift, last = (size - 1) >>> shift;
+        int count = (c == last) ? size - (c << shift) : k;
+        removeFromChunk(c, index & mask, count);
+        // Pull the first element of every following chunk back by one chunk
+        for(int j = c + 1; j <= last; ++j) {
+            Object[] ch = chunks[j];
+            Object first = ch[heads[j]];
+            ch[heads[j]] = null;
+            heads[j] = (heads[j] + 1) & mask;
+            chunks[j - 1][(heads[j - 1] + k - 1) & mask] = first;
+        }
+        size--;
+        if(size == last << shift) { // the last chunk is now empty
+            chunks = Arrays.copyOf(chunks, last);
+            heads = Arrays.copyOf(heads, last);
+        }
+
+        if(size > 0 && shift > MIN_SHIFT && size < (1 << shift) << shift >>> 3)
+            rechunk(shift - 1);
+        return old;
+    }
+
+    /**
+     * Remove every occurrence of o
+     * @return false if o does not exist
+     */
+    public boolean remove(Object o) {
+        if(o == null)
+            return removeIf(e -> e == null);
+        return removeIf(e -> o == e || o.equals(e));
+    }
+
+    /**
+     * Single pass like MTArrayList.removeIf, element by element
+     * since the elements are not in one array
+     * @return true if anything was removed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super E> filter) {
+        int w = 0, r = 0, oldSize = size;
+        try {
+            for(; r < oldSize; ++r) {
+                E e = get(r);
+                if(!filter.test(e)) {
+                    if(w != r)
+                        set(w, e);
+                    w++;
+                }
+            }
+        }
+        finally {
+            // If filter threw, keep what it has not looked at yet
+            for(; r < oldSize; ++r, ++w)
+                set(w, get(r));
+            if(w != oldSize)
+                truncate(w);
+        }
+        return w != oldSize;
+    }
+
+    public boolean removeAll(Collection<?> c) {
+        return removeIf(c::contains);
+    }
+
+    public boolean retainAll(Collection<?> c) {
+        return removeIf(e -> !c.contains(e));
+    }
+
+    /**
+     * Remove elements from index from (inclusive) to index to (exclusive)
+     */
+    public void removeRange(int from, int to) {
+        if(from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("from = " + from + ", to = " + to + ", size = " + size);
+        for(int r = to, w = from; r < size; ++r, ++w)
+            set(w, get(r));
+        truncate(size - (to - from));
+    }
+
+    public void clear() {
+        chunks = new Object[0][];
+        heads = new int[0];
+        shift = MIN_SHIFT;
+        size = 0;
+    }
+
+    private int chunkCount() {
+        return chunks.length;
+    }
+
+    private void addChunk() {
+        int n = chunks.length;
+        chunks = Arrays.copyOf(chunks, n + 1);
+        heads = Arrays.copyOf(heads, n + 1);
+        chunks[n] = new Object[1 << shift];
+    }
+
+    /**
+     * Insert e at pos of chunk c which holds count < k elements
+     */
+    private void insertInChunk(int c, int pos, int count, Object e) {
+        Object[] ch = chunks[c];
+        int mask = ch.length - 1, head = heads[c];
+        for(int i = count; i > pos; --i)
+            ch[(head + i) & mask] = ch[(head + i - 1) & mask];
+        ch[(head + pos) & mask] = e;
+    }
+
+    /**
+     * Insert e at pos of full chunk c
+     * @return the element pushed out of the end of the chunk
+     */
+    private Object insertInFullChunk(int c, int pos, Object e) {
+        Object[] ch = chunks[c];
+        int mask = ch.length - 1, head = heads[c];
+        int lastSlot = (head + mask) & mask;
+        Object out = ch[lastSlot];
+        if(pos == 0) { // the slot of the last element becomes the new head
+            ch[lastSlot] = e;
+            heads[c] = lastSlot;
+            return out;
+        }
+        for(int i = mask; i > pos; --i)
+            ch[(head + i) & mask] = ch[(head + i - 1) & mask];
+        ch[(head + pos) & mask] = e;
+        return out;
+    }
+
+    /**
+     * Remove the element at pos of chunk c which holds count elements,
+     * the slot freed at the end is left null
+     */
+    private void removeFromChunk(int c, int pos, int count) {
+        Object[] ch = chunks[c];
+        int mask = ch.length - 1, head = heads[c];
+        for(int i = pos; i < count - 1; ++i)
+            ch[(head + i) & mask] = ch[(head + i + 1) & mask];
+        ch[(head + count - 1) & mask] = null;
+    }
+
+    /**
+     * Keep the first newSize elements, then shrink k like remove does,
+     * by as many steps as needed at once
+     */
+    private void truncate(int newSize) {
+        for(int i = newSize; i < size; ++i)
+            set(i, null);
+        int n = (newSize + (1 << shift) - 1) >>> shift;
+        chunks = Arrays.copyOf(chunks, n);
+        heads = Arrays.copyOf(heads, n);
+        size = newSize;
+
+        int newShift = shift;
+        while(newShift > MIN_SHIFT && size < (1 << newShift) << newShift >>> 3)
+            newShift--;
+        if(newShift != shift)
+            rechunk(newShift);
+    }
+
+    /**
+     * Copy everything into chunks of 1 << newShift elements, O(n)
+     * but only after the size has doubled or shrunk a lot
+     */
+    private void rechunk(int newShift) {
+        int k = 1 << newShift;
+        int n = (size + k - 1) >>> newShift;
+        Object[][] newChunks = new Object[n][k];
+        for(int i = 0; i < size; ++i)
+            newChunks[i >>> newShift][i & (k - 1)] = get(i);
+        chunks = newChunks;
+        heads = new int[n];
+        shift = newShift;
+    }
+
+    private void rangeCheck(int index) {
+        if(index >= size || index < 0)
+            throw new IndexOutOfBoundsException("" + index);
+    }
+
+    private void rangeCheckForAdd(int index) {
+        if(index > size || index < 0)
+            throw new IndexOutOfBoundsException("" + index);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < size; ++i)
+            sb.append(get(i)).append(i == size - 1 ? "" : ", ");
+        return sb.toString();
+    }
+}
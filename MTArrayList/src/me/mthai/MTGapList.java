@@ -0,0 +1,208 @@
+package me.mthai;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * MTArrayList with a gap buffer: the free slots are not at the end of the
+ * array but at the last place something was inserted or removed,
+ *   data = [a b c _ _ _ _ d e]
+ *                 ^gapStart ^gapEnd
+ * so a following insert or removal there costs O(1). Moving the gap to
+ * another index copies the elements in between, which is cheap when
+ * edits happen near each other (like a text editor cursor). get and set
+ * are still O(1), they just skip the gap.
+ */
+public class MTGapList<E> {
+    static final int DEFAULT_CAPACITY = 10;
+    static final Object[] EMPTY = {};
+
+    Object[] data;
+    int gapStart, gapEnd; // free slots are [gapStart, gapEnd)
+
+    public MTGapList() {
+        data = EMPTY;
+    }
+
+    public int size() {
+        return data.length - (gapEnd - gapStart);
+    }
+
+    public void add(E e) {
+        add(size(), e);
+    }
+
+    public void add(int index, E e) {
+        rangeCheckForAdd(index);
+
+        ensureCapacity(size() + 1);
+        moveGap(index);
+        data[gapStart++] = e;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        rangeCheck(index);
+        return (E)data[slot(index)];
+    }
+
+    /**
+     * @return the previous element
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E e) {
+        rangeCheck(index);
+        int i = slot(index);
+        E old = (E)data[i];
+        data[i] = e;
+        return old;
+    }
+
+    /**
+     * @return the removed element
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        rangeCheck(index);
+
+        moveGap(index);
+        E old = (E)data[gapEnd];
+        data[gapEnd++] = null;
+        return old;
+    }
+
+    /**
+     * Remove every occurrence of o
+     * @return false if o does not exist
+     */
+    public boolean remove(Object o) {
+        if(o == null)
+            return removeIf(e -> e == null);
+        return removeIf(e -> o == e || o.equals(e));
+    }
+
+    /**
+     * Like MTArrayList.removeIf, after moving the gap to the end so that
+     * the elements are contiguous
+     * @return true if anything was removed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super E> filter) {
+        int size = size();
+        moveGap(size);
+        int w = 0, r = 0;
+        try {
+            for(; r < size; ++r) {
+                Object e = data[r];
+                if(!filter.test((E)e))
+                    data[w++] = e;
+            }
+        }
+        finally {
+            // If filter threw, keep what it has not looked at yet
+            if(r < size) {
+                System.arraycopy(data, r, data, w, size - r);
+                w += size - r;
+            }
+            Arrays.fill(data, w, size, null);
+            gapStart = w; // the removed slots join the gap
+        }
+        return w != size;
+    }
+
+    public boolean removeAll(Collection<?> c) {
+        return removeIf(c::contains);
+    }
+
+    public boolean retainAll(Collection<?> c) {
+        return removeIf(e -> !c.contains(e));
+    }
+
+    /**
+     * Remove elements from index from (inclusive) to index to (exclusive)
+     */
+    public void removeRange(int from, int to) {
+        if(from < 0 || to > size() || from > to)
+            throw new IndexOutOfBoundsException("from = " + from + ", to = " + to + ", size = " + size());
+        moveGap(from);
+        Arrays.fill(data, gapEnd, gapEnd + (to - from), null);
+        gapEnd += to - from;
+    }
+
+    public void clear() {
+        Arrays.fill(data, null);
+        gapStart = 0;
+        gapEnd = data.length;
+    }
+
+    private int slot(int index) {
+        return (index < gapStart) ? index : index + (gapEnd - gapStart);
+    }
+
+    /**
+     * Make the gap start at index, by copying the elements between
+     * the gap and index to the other side of the gap
+     */
+    private void moveGap(int index) {
+        int gap = gapEnd - gapStart;
+        if(index < gapStart) {
+            int n = gapStart - index;
+            System.arraycopy(data, index, data, gapEnd - n, n);
+            Arrays.fill(data, index, Math.min(gapStart, index + gap), null);
+        }
+        else if(index > gapStart) {
+            int n = index - gapStart;
+            System.arraycopy(data, gapEnd, data, gapStart, n);
+            Arrays.fill(data, Math.max(gapEnd, index), gapEnd + n, null);
+        }
+        gapStart = index;
+        gapEnd = index + gap;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if(data == EMPTY) {
+            minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
+        }
+
+        if(minCapacity - data.length > 0)
+            grow(minCapacity);
+    }
+
+    /**
+     * Same growth as MTArrayList, the elements after the gap go to the
+     * end of the new array so that the new slots are all in the gap
+     */
+    private void grow(int minCapacity) {
+        int oldCap = data.length;
+        int newCap = oldCap + (oldCap >> 1); // grows with the rate of 1.5
+        if(newCap - minCapacity < 0)
+            newCap = minCapacity;
+
+        Object[] newData = new Object[newCap];
+        int tail = oldCap - gapEnd;
+        System.arraycopy(data, 0, newData, 0, gapStart);
+        System.arraycopy(data, gapEnd, newData, newCap - tail, tail);
+        data = newData;
+        gapEnd = newCap - tail;
+    }
+
+    private void rangeCheck(int index) {
+        if(index >= size() || index < 0)
+            throw new IndexOutOfBoundsException("" + index);
+    }
+
+    private void rangeCheckForAdd(int index) {
+        if(index > size() || index < 0)
+            throw new IndexOutOfBoundsException("" + index);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int size = size();
+        for(int i = 0; i < size; ++i)
+            sb.append(data[slot(i)]).append(i == size - 1 ? "" : ", ");
+        return sb.toString();
+    }
+}
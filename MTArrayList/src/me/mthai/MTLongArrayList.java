@@ -0,0 +1,131 @@
+package me.mthai;
+
+import java.util.Arrays;
+
+/**
+ * MTArrayList of primitive longs: values are stored in the array itself, no
+ * boxing and no pointer to follow, and it grows the same way MTArrayList does.
+ */
+public class MTLongArrayList {
+    static final int DEFAULT_CAPACITY = 10;
+    static final long[] EMPTY = {};
+
+    long[] data;
+    int size;
+
+    public MTLongArrayList() {
+        data = EMPTY;
+    }
+
+    public MTLongArrayList(int initialCapacity) {
+        if(initialCapacity < 0)
+            throw new IllegalArgumentException("initialCapacity = " + initialCapacity);
+        data = (initialCapacity == 0) ? EMPTY : new long[initialCapacity];
+    }
+
+    public void add(long e) {
+        ensureCapacity(size + 1);
+        data[size++] = e;
+    }
+
+    public void add(int index, long e) {
+        rangeCheckForAdd(index);
+
+        ensureCapacity(size + 1);
+        System.arraycopy(data, index, data, index + 1, size - index);
+        data[index] = e;
+        size++;
+    }
+
+    public void addAll(long[] a) {
+        addAll(a, 0, a.length);
+    }
+
+    public void addAll(long[] a, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(a, offset, data, size, length);
+        size += length;
+    }
+
+    public long get(int index) {
+        rangeCheck(index);
+        return data[index];
+    }
+
+    /**
+     * @return the previous value
+     */
+    public long set(int index, long e) {
+        rangeCheck(index);
+        long old = data[index];
+        data[index] = e;
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void sort() {
+        Arrays.sort(data, 0, size);
+    }
+
+    /**
+     * The list must be sorted
+     * @return index of key, or (-(insertion point) - 1) if it does not exist
+     */
+    public int binarySearch(long key) {
+        return Arrays.binarySearch(data, 0, size, key);
+    }
+
+    /**
+     * The backing array itself, not a copy. Only the first size() values
+     * belong to the list, and the array is replaced when the list grows.
+     */
+    public long[] array() {
+        return data;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if(data == EMPTY) {
+            minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
+        }
+
+        if(minCapacity - data.length > 0)
+            grow(minCapacity);
+    }
+
+    private void grow(int minCapacity) {
+        int oldCap = data.length;
+        int newCap = oldCap + (oldCap >> 1); // grows with the rate of 1.5
+        if(newCap - minCapacity < 0)
+            newCap = minCapacity;
+        data = Arrays.copyOf(data, newCap);
+    }
+
+    private void rangeCheck(int index) {
+        if(index >= size || index < 0)
+            throw new IndexOutOfBoundsException("" + index);
+    }
+
+    private void rangeCheckForAdd(int index) {
+        if(index > size || index < 0)
+            throw new IndexOutOfBoundsException("" + index);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < size; ++i)
+            sb.append(data[i]).append(i == size - 1 ? "" : ", ");
+        return sb.toString();
+    }
+}
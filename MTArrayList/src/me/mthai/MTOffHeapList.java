@@ -0,0 +1,214 @@
+package me.mthai;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Append-only list of fixed-width records stored outside the Java heap.
+ * Records are written by a Codec into segments of direct memory, all of
+ * the same size, so record i is at a fixed place of segment i / perSegment.
+ * Growing adds a segment and never copies what is already there; the heap
+ * only holds the array of segments, whatever the number of records.
+ *
+ * Optionally, once maxDirectBytes of direct memory are used, new segments
+ * are mapped from a spill file instead, so the OS can page them out.
+ * The spill file is scratch space: it is deleted by close().
+ * Not thread-safe.
+ */
+public class MTOffHeapList<T> implements Closeable {
+    static final int SEGMENT_BYTES = 1 << 24; // 16MB
+
+    private final Codec<T> codec;
+    private final int width;
+    private final int segmentShift; // records per segment = 1 << segmentShift
+    private final int segmentBytes;
+
+    private ByteBuffer []segments = new ByteBuffer[0];
+    private int segmentCount;
+    private long size;
+
+    private final long maxDirectBytes; // Long.MAX_VALUE: never spill
+    private final File spillFile; // null: never spill
+    private int directSegments;
+    private RandomAccessFile spill;
+
+    public MTOffHeapList(Codec<T> codec) {
+        this(codec, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maxDirectBytes direct memory to use before mapping segments
+     *                       from spillFile
+     */
+    public MTOffHeapList(Codec<T> codec, long maxDirectBytes, File spillFile) {
+        this.codec = codec;
+        this.width = codec.width();
+        if(width <= 0 || width > SEGMENT_BYTES)
+            throw new IllegalArgumentException("width = " + width);
+        this.segmentShift = 31 - Integer.numberOfLeadingZeros(SEGMENT_BYTES / width);
+        this.segmentBytes = width << segmentShift;
+        this.maxDirectBytes = (spillFile != null) ? maxDirectBytes : Long.MAX_VALUE;
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * @return index of the new record
+     */
+    public long add(T value) {
+        long index = size;
+        int seg = (int)(index >>> segmentShift);
+        if(seg == segmentCount)
+            addSegment();
+        codec.write(value, segments[seg], offsetOf(index));
+        size++;
+        return index;
+    }
+
+    public T get(long index) {
+        rangeCheck(index);
+        return codec.read(segments[(int)(index >>> segmentShift)], offsetOf(index));
+    }
+
+    /**
+     * Read one field of a record without decoding all of it
+     * @param field byte offset of the field in the record
+     */
+    public long getLong(long index, int field) {
+        rangeCheck(index);
+        return segments[(int)(index >>> segmentShift)].getLong(offsetOf(index) + field);
+    }
+
+    public int getInt(long index, int field) {
+        rangeCheck(index);
+        return segments[(int)(index >>> segmentShift)].getInt(offsetOf(index) + field);
+    }
+
+    public double getDouble(long index, int field) {
+        rangeCheck(index);
+        return segments[(int)(index >>> segmentShift)].getDouble(offsetOf(index) + field);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Forget all records, the segments are kept and written over
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drop every segment and delete the spill file. Direct segments are
+     * freed by the garbage collector once the list is unreachable.
+     */
+    @Override
+    public void close() throws IOException {
+        segments = new ByteBuffer[0];
+        segmentCount = 0;
+        directSegments = 0;
+        size = 0;
+        if(spill != null) {
+            spill.close();
+            spill = null;
+            if(!spillFile.delete())
+                throw new IOException("Cannot delete " + spillFile);
+        }
+    }
+
+    private void addSegment() {
+        if(segmentCount == segments.length) // only references are copied
+            segments = Arrays.copyOf(segments, Math.max(4, segmentCount << 1));
+
+        ByteBuffer seg;
+        if((long)(directSegments + 1) * segmentBytes <= maxDirectBytes) {
+            seg = ByteBuffer.allocateDirect(segmentBytes);
+            directSegments++;
+        }
+        else
+            seg = mapSpill(segmentCount - directSegments);
+        segments[segmentCount++] = seg.order(ByteOrder.nativeOrder());
+    }
+
+    private ByteBuffer mapSpill(int i) {
+        try {
+            if(spill == null)
+                spill = new RandomAccessFile(spillFile, "rw");
+            // Mapping past the end of the file makes it longer
+            return spill.getChannel().map(FileChannel.MapMode.READ_WRITE, (long)i * segmentBytes, segmentBytes);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int offsetOf(long index) {
+        return (int)(index & ((1 << segmentShift) - 1)) * width;
+    }
+
+    private void rangeCheck(long index) {
+        if(index >= size || index < 0)
+            throw new IndexOutOfBoundsException("" + index);
+    }
+
+    @Override
+    public String toString() {
+        return "{size=" + size + ", width=" + width + ", segments=" + segmentCount
+                + ", spilled=" + (segmentCount - directSegments) + "}";
+    }
+
+    /**
+     * Converts a record to exactly width() bytes and back, at an absolute
+     * offset of a buffer so that no view object is created
+     */
+    public interface Codec<T> {
+        int width();
+
+        void write(T value, ByteBuffer to, int offset);
+
+        T read(ByteBuffer from, int offset);
+    }
+
+    public static final Codec<Long> LONG = new Codec<Long>() {
+        public int width() { return 8; }
+        public void write(Long value, ByteBuffer to, int offset) { to.putLong(offset, value); }
+        public Long read(ByteBuffer from, int offset) { return from.getLong(offset); }
+    };
+
+    public static final Codec<Double> DOUBLE = new Codec<Double>() {
+        public int width() { return 8; }
+        public void write(Double value, ByteBuffer to, int offset) { to.putDouble(offset, value); }
+        public Double read(ByteBuffer from, int offset) { return from.getDouble(offset); }
+    };
+
+    /**
+     * Records of exactly length bytes
+     */
+    public static Codec<byte[]> bytes(final int length) {
+        return new Codec<byte[]>() {
+            public int width() { return length; }
+
+            public void write(byte[] value, ByteBuffer to, int offset) {
+                if(value.length != length)
+                    throw new IllegalArgumentException("Expected " + length + " bytes, got " + value.length);
+                for(int i = 0; i < length; ++i)
+                    to.put(offset + i, value[i]);
+            }
+
+            public byte[] read(ByteBuffer from, int offset) {
+                byte []bytes = new byte[length];
+                for(int i = 0; i < length; ++i)
+                    bytes[i] = from.get(offset + i);
+                return bytes;
+            }
+        };
+    }
+}
@@ -7,6 +7,7 @@ public class Main {
     public static void main(String[] args) {
         Random rand = new Random();
 	    MTArrayList<Integer> list = new MTArrayList<>();
+        list.setMetrics(new MTArrayList.Metrics());
 
         for(int i = 0; i < 15; ++i) {
             list.add(rand.nextInt(100));
@@ -20,6 +21,7 @@ public class Main {
 
         System.out.printf("size: %d, capacity: %d\n", list.size, list.data.length);
         System.out.println(list);
+        System.out.println("Metrics: " + list.getMetrics());
 
         System.out.println("clear");
         list.clear();
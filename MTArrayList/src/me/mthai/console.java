@@ -1,10 +0,0 @@
-package me.mthai;
-
-/**
- * Created by mt on 1/4/2016.
- */
-public class console {
-    static void log(Object o) {
-        System.out.printf("[log] %s\n", o);
-    }
-}
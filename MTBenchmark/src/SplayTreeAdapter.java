@@ -0,0 +1,25 @@
+import me.mthai.bench.SplayTreeBenchmark;
+
+/**
+ * MTSplayTree lives in the default package which cannot be imported
+ * from me.mthai.bench (and JMH refuses benchmarks in the default package),
+ * so the benchmark reaches it through this adapter.
+ */
+public class SplayTreeAdapter implements SplayTreeBenchmark.Tree {
+    private MTSplayTree<Integer> tree = new MTSplayTree<>();
+
+    @Override
+    public void add(Integer key) {
+        tree.add(key);
+    }
+
+    @Override
+    public Object get(Integer key) {
+        return tree.get(key);
+    }
+
+    @Override
+    public boolean remove(Integer key) {
+        return tree.remove(key);
+    }
+}
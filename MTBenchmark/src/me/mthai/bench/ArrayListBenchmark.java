@@ -0,0 +1,190 @@
+package me.mthai.bench;
+
+import me.mthai.MTArrayList;
+import me.mthai.MTChunkedList;
+import me.mthai.MTGapList;
+import me.mthai.MTIntArrayList;
+import me.mthai.MTOffHeapList;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTArrayList vs java.util.ArrayList
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ArrayListBenchmark {
+    static final int REMOVALS = 64;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "ZIPF", "SORTED"})
+    Keys.Distribution distribution;
+
+    int []rawKeys;
+    Integer []keys;
+    MTIntArrayList mtIntList;
+    MTArrayList<Integer> mtList;
+    ArrayList<Integer> jdkList;
+
+    @Setup
+    public void setup() {
+        rawKeys = Keys.generate(distribution, size);
+        keys = Keys.boxed(rawKeys);
+        mtIntList = mtIntAdd();
+        mtList = mtAdd();
+        jdkList = jdkAdd();
+    }
+
+    @Benchmark
+    public MTArrayList<Integer> mtAdd() {
+        MTArrayList<Integer> list = new MTArrayList<>();
+        for(Integer k : keys)
+            list.add(k);
+        return list;
+    }
+
+    @Benchmark
+    public ArrayList<Integer> jdkAdd() {
+        ArrayList<Integer> list = new ArrayList<>();
+        for(Integer k : keys)
+            list.add(k);
+        return list;
+    }
+
+    @Benchmark
+    public MTIntArrayList mtIntAdd() {
+        MTIntArrayList list = new MTIntArrayList();
+        for(int k : rawKeys)
+            list.add(k);
+        return list;
+    }
+
+    @Benchmark
+    public long mtIntSum() {
+        int []a = mtIntList.array();
+        long sum = 0;
+        for(int i = 0, n = mtIntList.size(); i < n; ++i)
+            sum += a[i];
+        return sum;
+    }
+
+    @Benchmark
+    public long jdkSum() {
+        long sum = 0;
+        for(Integer k : jdkList)
+            sum += k;
+        return sum;
+    }
+
+    /**
+     * Fill the list then remove the first few keys,
+     * each removal shifts the tail of the list
+     */
+    @Benchmark
+    public MTArrayList<Integer> mtRemove() {
+        MTArrayList<Integer> list = mtAdd();
+        for(int i = 0; i < REMOVALS && i < size; ++i)
+            list.remove(keys[i]);
+        return list;
+    }
+
+    @Benchmark
+    public ArrayList<Integer> jdkRemove() {
+        ArrayList<Integer> list = jdkAdd();
+        for(int i = 0; i < REMOVALS && i < size; ++i)
+            list.remove(keys[i]);
+        return list;
+    }
+
+    /**
+     * Fill the list then drop every odd key in one call
+     */
+    @Benchmark
+    public MTArrayList<Integer> mtRemoveIf() {
+        MTArrayList<Integer> list = mtAdd();
+        list.removeIf(k -> (k & 1) != 0);
+        return list;
+    }
+
+    @Benchmark
+    public ArrayList<Integer> jdkRemoveIf() {
+        ArrayList<Integer> list = jdkAdd();
+        list.removeIf(k -> (k & 1) != 0);
+        return list;
+    }
+
+    /**
+     * Editor-like: every insert goes right after the previous one,
+     * starting from the middle of the list
+     */
+    @Benchmark
+    public MTGapList<Integer> mtGapCursorInsert() {
+        MTGapList<Integer> list = new MTGapList<>();
+        for(Integer k : keys)
+            list.add(list.size() / 2, k);
+        return list;
+    }
+
+    @Benchmark
+    public ArrayList<Integer> jdkCursorInsert() {
+        ArrayList<Integer> list = new ArrayList<>();
+        for(Integer k : keys)
+            list.add(list.size() / 2, k);
+        return list;
+    }
+
+    /**
+     * Every insert at a position given by the key
+     */
+    @Benchmark
+    public MTChunkedList<Integer> mtChunkedRandomInsert() {
+        MTChunkedList<Integer> list = new MTChunkedList<>();
+        for(int k : rawKeys)
+            list.add(Math.floorMod(k, list.size() + 1), k);
+        return list;
+    }
+
+    @Benchmark
+    public ArrayList<Integer> jdkRandomInsert() {
+        ArrayList<Integer> list = new ArrayList<>();
+        for(int k : rawKeys)
+            list.add(Math.floorMod(k, list.size() + 1), k);
+        return list;
+    }
+
+    @Benchmark
+    public long mtParallelReduce() {
+        return mtList.parallelReduce(0L, (sum, k) -> sum + k, Long::sum);
+    }
+
+    @Benchmark
+    public long jdkParallelStream() {
+        return jdkList.parallelStream().mapToLong(k -> k).sum();
+    }
+
+    @Benchmark
+    public long mtOffHeapAdd() throws IOException {
+        try(MTOffHeapList<Long> list = new MTOffHeapList<>(MTOffHeapList.LONG)) {
+            for(int k : rawKeys)
+                list.add((long)k);
+            return list.size();
+        }
+    }
+
+    @Benchmark
+    public long jdkLongAdd() {
+        ArrayList<Long> list = new ArrayList<>();
+        for(int k : rawKeys)
+            list.add((long)k);
+        return list.size();
+    }
+}
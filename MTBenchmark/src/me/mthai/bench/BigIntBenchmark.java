@@ -0,0 +1,132 @@
+package me.mthai.bench;
+
+import com.company.MTBigInt;
+import com.company.MTMutableBigInt;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTBigInt vs java.math.BigInteger
+ * Key distribution does not apply here, operands are random numbers
+ * of the given number of decimal digits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BigIntBenchmark {
+    static final int SUM_COUNT = 1000;
+
+    @Param({"100", "1000", "10000", "20000", "200000"})
+    int digits;
+
+    MTBigInt mtA, mtB, mtHalf;
+    BigInteger jdkA, jdkB, jdkHalf;
+    String decimalA;
+    MTMutableBigInt mtSum = new MTMutableBigInt();
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(Keys.SEED);
+        decimalA = random(digits, rand);
+        String b = random(digits, rand), half = random(Math.max(digits / 2, 1), rand);
+        mtA = MTBigInt.parse(decimalA);
+        mtB = MTBigInt.parse(b);
+        mtHalf = MTBigInt.parse(half);
+        jdkA = new BigInteger(decimalA);
+        jdkB = new BigInteger(b);
+        jdkHalf = new BigInteger(half);
+    }
+
+    private static String random(int digits, Random rand) {
+        StringBuilder sb = new StringBuilder(digits);
+        sb.append((char)('1' + rand.nextInt(9)));
+        for(int i = 1; i < digits; ++i)
+            sb.append((char)('0' + rand.nextInt(10)));
+        return sb.toString();
+    }
+
+    @Benchmark
+    public MTBigInt mtMultiply() {
+        return mtA.multiply(mtB);
+    }
+
+    @Benchmark
+    public BigInteger jdkMultiply() {
+        return jdkA.multiply(jdkB);
+    }
+
+    @Benchmark
+    public MTBigInt mtParallelMultiply() {
+        return mtA.parallelMultiply(mtB);
+    }
+
+    @Benchmark
+    public MTBigInt mtDivide() {
+        return mtA.divide(mtHalf);
+    }
+
+    @Benchmark
+    public BigInteger jdkDivide() {
+        return jdkA.divide(jdkHalf);
+    }
+
+    @Benchmark
+    public MTBigInt mtMod() {
+        return mtA.mod(mtHalf);
+    }
+
+    @Benchmark
+    public BigInteger jdkMod() {
+        return jdkA.mod(jdkHalf);
+    }
+
+    @Benchmark
+    public String mtToString() {
+        return mtA.toString();
+    }
+
+    @Benchmark
+    public String jdkToString() {
+        return jdkA.toString();
+    }
+
+    @Benchmark
+    public MTBigInt mtParse() {
+        return MTBigInt.parse(decimalA);
+    }
+
+    @Benchmark
+    public BigInteger jdkParse() {
+        return new BigInteger(decimalA);
+    }
+
+    @Benchmark
+    public MTBigInt mtSum() {
+        MTBigInt sum = MTBigInt.ZERO;
+        for(int i = 0; i < SUM_COUNT; ++i)
+            sum = sum.add(mtA);
+        return sum;
+    }
+
+    @Benchmark
+    public MTMutableBigInt mtMutableSum() {
+        mtSum.clear();
+        for(int i = 0; i < SUM_COUNT; ++i)
+            mtSum.addInPlace(mtA);
+        return mtSum;
+    }
+
+    @Benchmark
+    public BigInteger jdkSum() {
+        BigInteger sum = BigInteger.ZERO;
+        for(int i = 0; i < SUM_COUNT; ++i)
+            sum = sum.add(jdkA);
+        return sum;
+    }
+}
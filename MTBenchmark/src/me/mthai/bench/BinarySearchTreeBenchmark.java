@@ -0,0 +1,87 @@
+package me.mthai.bench;
+
+import com.company.MTBinarySearchTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTBinarySearchTree vs java.util.TreeSet
+ * TreeSet has no select(k), the reference walks its in-order iterator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BinarySearchTreeBenchmark {
+    static final int SELECTS = 64;
+
+    @Param({"1000", "10000"})
+    int size;
+
+    @Param({"UNIFORM", "ZIPF", "SORTED"})
+    Keys.Distribution distribution;
+
+    Integer []keys;
+    MTBinarySearchTree<Integer> mtTree;
+    TreeSet<Integer> jdkTree;
+
+    @Setup
+    public void setup() {
+        keys = Keys.boxed(Keys.generate(distribution, size));
+        mtTree = mtAdd();
+        jdkTree = jdkAdd();
+    }
+
+    @Benchmark
+    public MTBinarySearchTree<Integer> mtAdd() {
+        MTBinarySearchTree<Integer> tree = new MTBinarySearchTree<>();
+        for(Integer k : keys)
+            tree.add(k);
+        return tree;
+    }
+
+    @Benchmark
+    public TreeSet<Integer> jdkAdd() {
+        TreeSet<Integer> tree = new TreeSet<>();
+        for(Integer k : keys)
+            tree.add(k);
+        return tree;
+    }
+
+    @Benchmark
+    public void mtContains(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(mtTree.contains(k));
+    }
+
+    @Benchmark
+    public void jdkContains(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(jdkTree.contains(k));
+    }
+
+    @Benchmark
+    public void mtSelect(Blackhole bh) {
+        int n = jdkTree.size();
+        for(int i = 0; i < SELECTS; ++i)
+            bh.consume(mtTree.select((int)((long)i * n / SELECTS)));
+    }
+
+    @Benchmark
+    public void jdkSelect(Blackhole bh) {
+        int n = jdkTree.size();
+        for(int i = 0; i < SELECTS; ++i) {
+            int k = (int)((long)i * n / SELECTS);
+            Iterator<Integer> it = jdkTree.iterator();
+            for(int j = 0; j < k; ++j)
+                it.next();
+            bh.consume(it.next());
+        }
+    }
+}
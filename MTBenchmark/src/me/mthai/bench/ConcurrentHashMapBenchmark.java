@@ -0,0 +1,82 @@
+package me.mthai.bench;
+
+import me.mthai.MTConcurrentHashMap;
+import me.mthai.MTHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups from all cores at once: MTConcurrentHashMap vs
+ * java.util.concurrent.ConcurrentHashMap vs MTHashMap behind a global lock.
+ * Use -t to try other thread counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(Threads.MAX)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConcurrentHashMapBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "ZIPF"})
+    Keys.Distribution distribution;
+
+    Integer []keys;
+    MTConcurrentHashMap<Integer, Integer> mtMap;
+    ConcurrentHashMap<Integer, Integer> jdkMap;
+    MTHashMap<Integer, Integer> lockedMap;
+
+    @Setup
+    public void setup() {
+        keys = Keys.boxed(Keys.generate(distribution, size));
+        mtMap = new MTConcurrentHashMap<>();
+        jdkMap = new ConcurrentHashMap<>();
+        lockedMap = new MTHashMap<>();
+        for(Integer k : keys) {
+            mtMap.put(k, k);
+            jdkMap.put(k, k);
+            lockedMap.put(k, k);
+        }
+    }
+
+    private Integer nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    public void mtGet(Blackhole bh) {
+        bh.consume(mtMap.get(nextKey()));
+    }
+
+    @Benchmark
+    public void jdkGet(Blackhole bh) {
+        bh.consume(jdkMap.get(nextKey()));
+    }
+
+    @Benchmark
+    public void lockedGet(Blackhole bh) {
+        Integer key = nextKey();
+        synchronized(lockedMap) {
+            bh.consume(lockedMap.get(key));
+        }
+    }
+
+    @Benchmark
+    public void mtPut() {
+        Integer key = nextKey();
+        mtMap.put(key, key);
+    }
+
+    @Benchmark
+    public void jdkPut() {
+        Integer key = nextKey();
+        jdkMap.put(key, key);
+    }
+}
@@ -0,0 +1,105 @@
+package me.mthai.bench;
+
+import com.company.MTGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTGraph.ShortestPath vs a reference Dijkstra on a compact
+ * adjacency array. The key distribution picks the destination of
+ * every edge: ZIPF gives a few hub vertices, SORTED gives long chains.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GraphBenchmark {
+    static final int DEGREE = 8;
+    static final int MAX_WEIGHT = 100;
+
+    @Param({"100", "1000"})
+    int vertices;
+
+    @Param({"UNIFORM", "ZIPF", "SORTED"})
+    Keys.Distribution distribution;
+
+    MTGraph graph;
+    int src, des;
+
+    // reference graph, edges of u are in [start[u], start[u + 1])
+    int []start, target, weight;
+
+    @Setup
+    public void setup() {
+        int edges = vertices * DEGREE;
+        int []dest = Keys.generate(distribution, edges);
+        Random rand = new Random(Keys.SEED);
+
+        graph = new MTGraph(vertices);
+        start = new int[vertices + 2];
+        target = new int[edges];
+        weight = new int[edges];
+        for(int i = 0; i < edges; ++i) {
+            int u = i / DEGREE + 1;
+            int v = dest[i] % vertices + 1;
+            int w = 1 + rand.nextInt(MAX_WEIGHT);
+            graph.addEdge(u, v, w);
+            target[i] = v;
+            weight[i] = w;
+            start[u + 1]++;
+        }
+        for(int u = 1; u <= vertices; ++u)
+            start[u + 1] += start[u];
+
+        src = 1;
+        des = vertices;
+    }
+
+    @Benchmark
+    public int mtDijkstra() {
+        return MTGraph.ShortestPath.Dijkstra(graph, src, des);
+    }
+
+    @Benchmark
+    public int mtBellmanFord() {
+        return MTGraph.ShortestPath.BellmanFord(graph, src, des);
+    }
+
+    @Benchmark
+    public int mtFloydWarshall() {
+        return MTGraph.ShortestPath.FloydWarshall(graph, src, des);
+    }
+
+    @Benchmark
+    public int referenceDijkstra() {
+        int []dist = new int[vertices + 1];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[src] = 0;
+
+        // (distance << 32 | vertex) so that the heap orders by distance
+        PriorityQueue<Long> heap = new PriorityQueue<>();
+        heap.add((long)src);
+        while(!heap.isEmpty()) {
+            long top = heap.poll();
+            int d = (int)(top >>> 32), u = (int)top;
+            if(d > dist[u])
+                continue; // stale entry
+            if(u == des)
+                return d;
+            for(int i = start[u]; i < start[u + 1]; ++i) {
+                int v = target[i], nd = d + weight[i];
+                if(nd < dist[v]) {
+                    dist[v] = nd;
+                    heap.add((long)nd << 32 | v);
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,83 @@
+package me.mthai.bench;
+
+import me.mthai.MTHashMap;
+import me.mthai.MTIntIntHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTHashMap vs java.util.HashMap
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HashMapBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "ZIPF", "SORTED"})
+    Keys.Distribution distribution;
+
+    int []intKeys;
+    Integer []keys;
+    MTHashMap<Integer, Integer> mtMap;
+    MTIntIntHashMap intMap;
+    HashMap<Integer, Integer> jdkMap;
+
+    @Setup
+    public void setup() {
+        intKeys = Keys.generate(distribution, size);
+        keys = Keys.boxed(intKeys);
+        mtMap = mtPut();
+        intMap = intIntPut();
+        jdkMap = jdkPut();
+    }
+
+    @Benchmark
+    public MTHashMap<Integer, Integer> mtPut() {
+        MTHashMap<Integer, Integer> map = new MTHashMap<>();
+        for(Integer k : keys)
+            map.put(k, k);
+        return map;
+    }
+
+    @Benchmark
+    public HashMap<Integer, Integer> jdkPut() {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for(Integer k : keys)
+            map.put(k, k);
+        return map;
+    }
+
+    @Benchmark
+    public void mtGet(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(mtMap.get(k));
+    }
+
+    @Benchmark
+    public void jdkGet(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(jdkMap.get(k));
+    }
+
+    @Benchmark
+    public MTIntIntHashMap intIntPut() {
+        MTIntIntHashMap map = new MTIntIntHashMap();
+        for(int k : intKeys)
+            map.put(k, k);
+        return map;
+    }
+
+    @Benchmark
+    public void intIntGet(Blackhole bh) {
+        for(int k : intKeys)
+            bh.consume(intMap.get(k));
+    }
+}
@@ -0,0 +1,83 @@
+package me.mthai.bench;
+
+import me.mthai.MTHashSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTHashSet vs java.util.HashSet
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HashSetBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "ZIPF", "SORTED"})
+    Keys.Distribution distribution;
+
+    Integer []keys;
+    MTHashSet<Integer> mtSet;
+    HashSet<Integer> jdkSet;
+
+    @Setup
+    public void setup() {
+        keys = Keys.boxed(Keys.generate(distribution, size));
+        mtSet = mtAdd();
+        jdkSet = jdkAdd();
+    }
+
+    @Benchmark
+    public MTHashSet<Integer> mtAdd() {
+        MTHashSet<Integer> set = new MTHashSet<>();
+        for(Integer k : keys)
+            set.add(k);
+        return set;
+    }
+
+    @Benchmark
+    public HashSet<Integer> jdkAdd() {
+        HashSet<Integer> set = new HashSet<>();
+        for(Integer k : keys)
+            set.add(k);
+        return set;
+    }
+
+    @Benchmark
+    public void mtContains(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(mtSet.contains(k));
+    }
+
+    @Benchmark
+    public void jdkContains(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(jdkSet.contains(k));
+    }
+
+    /**
+     * Build then empty the set again, duplicates make some removals miss
+     */
+    @Benchmark
+    public MTHashSet<Integer> mtRemove() {
+        MTHashSet<Integer> set = mtAdd();
+        for(Integer k : keys)
+            set.remove(k);
+        return set;
+    }
+
+    @Benchmark
+    public HashSet<Integer> jdkRemove() {
+        HashSet<Integer> set = jdkAdd();
+        for(Integer k : keys)
+            set.remove(k);
+        return set;
+    }
+}
@@ -0,0 +1,62 @@
+package me.mthai.bench;
+
+import com.company.MTHeap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTHeap vs java.util.PriorityQueue, add everything then poll everything
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HeapBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "ZIPF", "SORTED"})
+    Keys.Distribution distribution;
+
+    Integer []keys;
+
+    @Setup
+    public void setup() {
+        keys = Keys.boxed(Keys.generate(distribution, size));
+    }
+
+    @Benchmark
+    public MTHeap<Integer> mtAdd() {
+        MTHeap<Integer> heap = new MTHeap<>();
+        for(Integer k : keys)
+            heap.add(k);
+        return heap;
+    }
+
+    @Benchmark
+    public PriorityQueue<Integer> jdkAdd() {
+        PriorityQueue<Integer> heap = new PriorityQueue<>();
+        for(Integer k : keys)
+            heap.add(k);
+        return heap;
+    }
+
+    @Benchmark
+    public void mtAddPoll(Blackhole bh) {
+        MTHeap<Integer> heap = mtAdd();
+        while(!heap.isEmpty())
+            bh.consume(heap.poll());
+    }
+
+    @Benchmark
+    public void jdkAddPoll(Blackhole bh) {
+        PriorityQueue<Integer> heap = jdkAdd();
+        while(!heap.isEmpty())
+            bh.consume(heap.poll());
+    }
+}
@@ -0,0 +1,84 @@
+package me.mthai.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Key generator shared by all benchmarks.
+ * Every distribution produces keys in [0, n) so that the number
+ * of distinct keys (and therefore the final size of a set/map)
+ * is controlled by the distribution, not by the range.
+ */
+public class Keys {
+    static final long SEED = 42;
+
+    public enum Distribution {
+        UNIFORM, // every key equally likely, roughly 63% distinct
+        ZIPF,    // a few hot keys, long tail (s = 1)
+        SORTED   // 0, 1, 2, ... n - 1, the worst case for unbalanced trees
+    }
+
+    public static int[] generate(Distribution distribution, int n) {
+        Random rand = new Random(SEED);
+        int []keys = new int[n];
+        switch(distribution) {
+            case UNIFORM:
+                for(int i = 0; i < n; ++i)
+                    keys[i] = rand.nextInt(n);
+                break;
+            case ZIPF:
+                double []cdf = zipfCdf(n);
+                for(int i = 0; i < n; ++i) {
+                    int rank = Arrays.binarySearch(cdf, rand.nextDouble());
+                    keys[i] = (rank >= 0) ? rank : Math.min(-rank - 1, n - 1);
+                }
+                shuffleRanks(keys, n, rand);
+                break;
+            case SORTED:
+                for(int i = 0; i < n; ++i)
+                    keys[i] = i;
+                break;
+        }
+        return keys;
+    }
+
+    public static Integer[] boxed(int []keys) {
+        Integer []rs = new Integer[keys.length];
+        for(int i = 0; i < keys.length; ++i)
+            rs[i] = keys[i];
+        return rs;
+    }
+
+    /**
+     * Cumulative probability of rank 0..n-1 where P(rank k) ~ 1 / (k + 1)
+     */
+    private static double[] zipfCdf(int n) {
+        double []cdf = new double[n];
+        double sum = 0;
+        for(int k = 0; k < n; ++k) {
+            sum += 1.0 / (k + 1);
+            cdf[k] = sum;
+        }
+        for(int k = 0; k < n; ++k)
+            cdf[k] /= sum;
+        return cdf;
+    }
+
+    /**
+     * Hot ranks are small numbers, map them to random keys so the
+     * hot keys do not all land in the first buckets / leftmost nodes
+     */
+    private static void shuffleRanks(int []keys, int n, Random rand) {
+        int []perm = new int[n];
+        for(int i = 0; i < n; ++i)
+            perm[i] = i;
+        for(int i = n - 1; i > 0; --i) {
+            int j = rand.nextInt(i + 1);
+            int tmp = perm[i];
+            perm[i] = perm[j];
+            perm[j] = tmp;
+        }
+        for(int i = 0; i < keys.length; ++i)
+            keys[i] = perm[keys[i]];
+    }
+}
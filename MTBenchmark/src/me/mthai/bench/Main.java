@@ -0,0 +1,24 @@
+package me.mthai.bench;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run every benchmark, or only those matching the given regexps,
+ * e.g. "HashMap" or "SkipListBenchmark.mt.*"
+ */
+public class Main {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        if(args.length == 0)
+            builder.include(".*Benchmark.*");
+        for(String pattern : args)
+            builder.include(pattern);
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
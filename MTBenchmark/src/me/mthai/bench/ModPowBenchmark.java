@@ -0,0 +1,68 @@
+package me.mthai.bench;
+
+import com.company.MTBigInt;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modular arithmetic of MTBigInt vs java.math.BigInteger, with an odd
+ * modulus (a prime, like in RSA/DH) of the given number of bits.
+ * BigInteger.modPow has intrinsics on most JVMs, MTBigInt is plain Java.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ModPowBenchmark {
+    @Param({"512", "1024", "2048"})
+    int bits;
+
+    MTBigInt mtBase, mtExponent, mtModulus;
+    BigInteger jdkBase, jdkExponent, jdkModulus;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(Keys.SEED);
+        jdkModulus = BigInteger.probablePrime(bits, rand);
+        jdkBase = new BigInteger(bits - 1, rand);
+        jdkExponent = new BigInteger(bits, rand);
+        mtModulus = MTBigInt.fromByteArray(jdkModulus.toByteArray());
+        mtBase = MTBigInt.fromByteArray(jdkBase.toByteArray());
+        mtExponent = MTBigInt.fromByteArray(jdkExponent.toByteArray());
+    }
+
+    @Benchmark
+    public MTBigInt mtModPow() {
+        return mtBase.modPow(mtExponent, mtModulus);
+    }
+
+    @Benchmark
+    public BigInteger jdkModPow() {
+        return jdkBase.modPow(jdkExponent, jdkModulus);
+    }
+
+    @Benchmark
+    public MTBigInt mtModInverse() {
+        return mtBase.modInverse(mtModulus);
+    }
+
+    @Benchmark
+    public BigInteger jdkModInverse() {
+        return jdkBase.modInverse(jdkModulus);
+    }
+
+    @Benchmark
+    public MTBigInt mtGcd() {
+        return mtBase.gcd(mtExponent);
+    }
+
+    @Benchmark
+    public BigInteger jdkGcd() {
+        return jdkBase.gcd(jdkExponent);
+    }
+}
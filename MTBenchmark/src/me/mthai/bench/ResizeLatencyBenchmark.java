@@ -0,0 +1,37 @@
+package me.mthai.bench;
+
+import me.mthai.MTHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a single put into a growing map, look at the p99.9 and
+ * max of the sample distribution: with migrateStep = 0 a put that
+ * triggers a resize rehashes the whole table.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ResizeLatencyBenchmark {
+    @Param({"0", "1", "8"})
+    int migrateStep;
+
+    MTHashMap<Integer, Integer> map;
+    int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        map = new MTHashMap<>(8, migrateStep);
+        next = 0;
+    }
+
+    @Benchmark
+    public Integer put() {
+        Integer key = next++;
+        return map.put(key, key);
+    }
+}
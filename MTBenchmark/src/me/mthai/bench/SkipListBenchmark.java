@@ -0,0 +1,97 @@
+package me.mthai.bench;
+
+import me.mthai.MTConcurrentSkipList;
+import me.mthai.MTSkipList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTSkipList vs java.util.concurrent.ConcurrentSkipListSet
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SkipListBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "ZIPF", "SORTED"})
+    Keys.Distribution distribution;
+
+    Integer []keys;
+    MTSkipList<Integer> mtList;
+    MTConcurrentSkipList<Integer> mtConcurrentList;
+    ConcurrentSkipListSet<Integer> jdkList;
+
+    @Setup
+    public void setup() {
+        keys = Keys.boxed(Keys.generate(distribution, size));
+        mtList = mtAdd();
+        mtConcurrentList = mtConcurrentAdd();
+        jdkList = jdkAdd();
+    }
+
+    @Benchmark
+    public MTSkipList<Integer> mtAdd() {
+        MTSkipList<Integer> list = new MTSkipList<>(Keys.SEED);
+        for(Integer k : keys)
+            list.add(k);
+        return list;
+    }
+
+    @Benchmark
+    public ConcurrentSkipListSet<Integer> jdkAdd() {
+        ConcurrentSkipListSet<Integer> list = new ConcurrentSkipListSet<>();
+        for(Integer k : keys)
+            list.add(k);
+        return list;
+    }
+
+    @Benchmark
+    public void mtContains(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(mtList.contains(k));
+    }
+
+    @Benchmark
+    public void jdkContains(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(jdkList.contains(k));
+    }
+
+    @Benchmark
+    public void mtSubList(Blackhole bh) {
+        for(int i = 0; i < keys.length; i += 64) {
+            for(Integer v : mtList.subList(keys[i], keys[i] + 64))
+                bh.consume(v);
+        }
+    }
+
+    @Benchmark
+    public void jdkSubList(Blackhole bh) {
+        for(int i = 0; i < keys.length; i += 64) {
+            for(Integer v : jdkList.subSet(keys[i], keys[i] + 64))
+                bh.consume(v);
+        }
+    }
+
+    @Benchmark
+    public MTConcurrentSkipList<Integer> mtConcurrentAdd() {
+        MTConcurrentSkipList<Integer> list = new MTConcurrentSkipList<>();
+        for(Integer k : keys)
+            list.add(k);
+        return list;
+    }
+
+    @Benchmark
+    public void mtConcurrentContains(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(mtConcurrentList.contains(k));
+    }
+}
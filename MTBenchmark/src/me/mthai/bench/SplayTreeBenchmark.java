@@ -0,0 +1,93 @@
+package me.mthai.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Constructor;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MTSplayTree vs java.util.TreeSet
+ * Trees are recursive and unbalanced in the worst case, so sizes are
+ * kept small enough for SORTED keys not to overflow the stack.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SplayTreeBenchmark {
+    /**
+     * Implemented by SplayTreeAdapter in the default package
+     */
+    public interface Tree {
+        void add(Integer key);
+        Object get(Integer key);
+        boolean remove(Integer key);
+    }
+
+    @Param({"1000", "10000"})
+    int size;
+
+    @Param({"UNIFORM", "ZIPF", "SORTED"})
+    Keys.Distribution distribution;
+
+    Integer []keys;
+    Constructor<?> adapter;
+    Tree mtTree;
+    TreeSet<Integer> jdkTree;
+
+    @Setup
+    public void setup() throws Exception {
+        keys = Keys.boxed(Keys.generate(distribution, size));
+        adapter = Class.forName("SplayTreeAdapter").getConstructor();
+        mtTree = mtAdd();
+        jdkTree = jdkAdd();
+    }
+
+    @Benchmark
+    public Tree mtAdd() throws Exception {
+        Tree tree = (Tree)adapter.newInstance();
+        for(Integer k : keys)
+            tree.add(k);
+        return tree;
+    }
+
+    @Benchmark
+    public TreeSet<Integer> jdkAdd() {
+        TreeSet<Integer> tree = new TreeSet<>();
+        for(Integer k : keys)
+            tree.add(k);
+        return tree;
+    }
+
+    @Benchmark
+    public void mtGet(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(mtTree.get(k));
+    }
+
+    @Benchmark
+    public void jdkGet(Blackhole bh) {
+        for(Integer k : keys)
+            bh.consume(jdkTree.contains(k));
+    }
+
+    @Benchmark
+    public Tree mtRemove() throws Exception {
+        Tree tree = mtAdd();
+        for(Integer k : keys)
+            tree.remove(k);
+        return tree;
+    }
+
+    @Benchmark
+    public TreeSet<Integer> jdkRemove() {
+        TreeSet<Integer> tree = jdkAdd();
+        for(Integer k : keys)
+            tree.remove(k);
+        return tree;
+    }
+}
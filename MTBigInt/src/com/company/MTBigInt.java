@@ -1,12 +1,62 @@
 package com.company;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Non-negative integer of any size, stored in binary as 32-bit words
+ * (read as unsigned, products and carries go through a long). Decimal
+ * is only used by parse, valueOf and toString.
+ */
 public class MTBigInt implements Comparable<MTBigInt> {
     private final int INITIAL_LEN = 2;
-    private static final int BASE = 10000;
+    static final long LONG_MASK = 0xffffffffL;
+
+    /**
+     * multiply uses the schoolbook method when the shorter operand has
+     * fewer words than KARATSUBA_THRESHOLD, Karatsuba up to TOOM3_THRESHOLD
+     * and Toom-3 above. The results are the same, only the speed differs.
+     */
+    static final int KARATSUBA_THRESHOLD = 80;
+    static final int TOOM3_THRESHOLD = 240;
+
+    /**
+     * Division uses Burnikel-Ziegler when the divisor has at least
+     * BURNIKEL_ZIEGLER_THRESHOLD words and the quotient is at least
+     * BURNIKEL_ZIEGLER_OFFSET words long, Knuth's long division otherwise
+     */
+    static final int BURNIKEL_ZIEGLER_THRESHOLD = 80;
+    static final int BURNIKEL_ZIEGLER_OFFSET = 40;
+
+    /**
+     * parse and toString split numbers of at least RADIX_THRESHOLD words
+     * around a power of 10 and convert both halves, smaller ones are
+     * converted 9 digits at a time
+     */
+    static final int RADIX_THRESHOLD = 20;
 
-    private int []words;
+    /**
+     * The parallel methods fork sub-products (and halves of a radix
+     * conversion) of at least PARALLEL_THRESHOLD words, smaller ones are
+     * not worth a task
+     */
+    static final int PARALLEL_THRESHOLD = 1000;
 
-    public int length = 1; // Default value is 0
+    private static final int TEN_POW_9 = 1_000_000_000;
+
+    /**
+     * powersOfTen[k] = 10^(9 * 2^k), shared by every conversion.
+     * Threads racing to make it longer compute the same values.
+     */
+    private static volatile int [][]powersOfTen = {{TEN_POW_9}};
+
+    int []words; // MTMutableBigInt reads it directly
+
+    public int length = 0; // Default value is 0
 
     public MTBigInt() {
         words = new int[INITIAL_LEN];
@@ -17,98 +67,882 @@ public class MTBigInt implements Comparable<MTBigInt> {
         words = new int[len];
     }
 
+    /**
+     * Wrap a magnitude, without copying it
+     */
+    MTBigInt(int []mag) {
+        words = mag;
+        length = mag.length;
+        truncate();
+    }
+
     public MTBigInt add(MTBigInt other) {
-        int maxLen = Math.max(length, other.length);
-        MTBigInt sum = new MTBigInt(maxLen + 1);
-        int carry = 0;
-        for(int i = 0; i < maxLen; ++i) {
-            sum.words[i] = words[i] + other.words[i] + carry;
-            carry = sum.words[i] / BASE;
-            sum.words[i] %= BASE;
+        return new MTBigInt(add(mag(), other.mag()));
+    }
+
+    public MTBigInt multiply(MTBigInt other) {
+        return new MTBigInt(multiply(mag(), other.mag()));
+    }
+
+    /**
+     * multiply with the sub-products of Toom-3 forked on the common pool
+     */
+    public MTBigInt parallelMultiply(MTBigInt other) {
+        return parallelMultiply(other, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * multiply with the sub-products of Toom-3 forked on pool,
+     * so at most pool.getParallelism() threads work on it
+     */
+    public MTBigInt parallelMultiply(MTBigInt other, ForkJoinPool pool) {
+        return new MTBigInt(pool.invoke(new MultiplyTask(mag(), other.mag())));
+    }
+
+    /**
+     * @throws ArithmeticException if other is greater than this,
+     * MTBigInt has no negative numbers
+     */
+    public MTBigInt subtract(MTBigInt other) {
+        if(compareTo(other) < 0)
+            throw new ArithmeticException("Negative result: " + this + " - " + other);
+        return new MTBigInt(subtract(mag(), other.mag()));
+    }
+
+    /**
+     * @throws ArithmeticException if other is 0
+     */
+    public MTBigInt divide(MTBigInt other) {
+        return divideAndRemainder(other)[0];
+    }
+
+    /**
+     * this mod other, which is also the remainder of divide
+     * since there is no negative MTBigInt
+     */
+    public MTBigInt mod(MTBigInt other) {
+        return divideAndRemainder(other)[1];
+    }
+
+    /**
+     * @return {this / other, this % other}
+     */
+    public MTBigInt[] divideAndRemainder(MTBigInt other) {
+        int [][]qr = divideAndRemainder(mag(), other.mag());
+        return new MTBigInt[] {new MTBigInt(qr[0]), new MTBigInt(qr[1])};
+    }
+
+    /**
+     * @throws ArithmeticException if exponent is negative
+     */
+    public MTBigInt pow(int exponent) {
+        if(exponent < 0)
+            throw new ArithmeticException("Negative exponent: " + exponent);
+        int []base = mag(), r = ONE;
+        for(int bit = 31 - Integer.numberOfLeadingZeros(exponent); bit >= 0; --bit) {
+            r = multiply(r, r);
+            if((exponent >>> bit & 1) != 0)
+                r = multiply(r, base);
         }
-        if(carry > 0)
-            sum.words[maxLen + 1] = carry;
+        return new MTBigInt(r);
+    }
 
-        sum.truncate();
-        return sum;
+    /**
+     * Greatest common divisor, gcd(0, 0) = 0
+     */
+    public MTBigInt gcd(MTBigInt other) {
+        return new MTBigInt(gcd(mag(), other.mag()));
     }
 
-    public MTBigInt multiply(MTBigInt other) {
-        MTBigInt product = new MTBigInt(length + other.length);
-        for(int i = 0; i < length; ++i) {
-            int carry = 0;
-            for(int j = 0; j < other.length; ++j) {
+    /**
+     * this^exponent mod m
+     * @throws ArithmeticException if m is 0
+     */
+    public MTBigInt modPow(MTBigInt exponent, MTBigInt m) {
+        int []mod = m.mag();
+        if(mod.length == 0)
+            throw new ArithmeticException("Modulus is zero");
+        if(compare(mod, ONE) == 0)
+            return new MTBigInt(new int[0]);
+        int []base = divideAndRemainder(mag(), mod)[1], e = exponent.mag();
+        if(e.length == 0)
+            return new MTBigInt(ONE);
+        if(base.length == 0)
+            return new MTBigInt(new int[0]);
+        return new MTBigInt(((mod[0] & 1) != 0) ? modPowMontgomery(base, e, mod) : modPowDivide(base, e, mod));
+    }
+
+    /**
+     * x such that this * x mod m = 1
+     * @throws ArithmeticException if m is 0 or this and m are not coprime
+     */
+    public MTBigInt modInverse(MTBigInt m) {
+        int []mod = m.mag();
+        if(mod.length == 0)
+            throw new ArithmeticException("Modulus is zero");
+        if(compare(mod, ONE) == 0)
+            return new MTBigInt(new int[0]);
+        return new MTBigInt(modInverse(divideAndRemainder(mag(), mod)[1], mod));
+    }
+
+    /**
+     * The words in use, the array itself when there is no spare room
+     */
+    int[] mag() {
+        return (words.length == length) ? words : Arrays.copyOf(words, length);
+    }
+
+    /*
+     * Arithmetic on magnitudes: little-endian arrays of unsigned 32-bit
+     * words with no leading zero word (zero is the empty array). They are
+     * never changed once returned.
+     */
+
+    private static final int []ONE = {1};
+
+    static int[] add(int []a, int []b) {
+        if(a.length < b.length) {
+            int []t = a; a = b; b = t;
+        }
+        int []r = new int[a.length + 1];
+        long carry = 0;
+        for(int i = 0; i < a.length; ++i) {
+            long s = (a[i] & LONG_MASK) + ((i < b.length) ? b[i] & LONG_MASK : 0) + carry;
+            r[i] = (int)s;
+            carry = s >>> 32;
+        }
+        r[a.length] = (int)carry;
+        return trim(r, r.length);
+    }
+
+    /**
+     * a - b, a must not be smaller than b
+     */
+    static int[] subtract(int []a, int []b) {
+        int []r = new int[a.length];
+        long borrow = 0;
+        for(int i = 0; i < a.length; ++i) {
+            long d = (a[i] & LONG_MASK) - ((i < b.length) ? b[i] & LONG_MASK : 0) - borrow;
+            r[i] = (int)d;
+            borrow = d >>> 63;
+        }
+        return trim(r, r.length);
+    }
+
+    /**
+     * r += x * 2^(32 * offset), r must be long enough for the result
+     */
+    static void addInto(int []r, int []x, int offset) {
+        long carry = 0;
+        int i = offset;
+        for(int j = 0; j < x.length; ++i, ++j) {
+            long s = (r[i] & LONG_MASK) + (x[j] & LONG_MASK) + carry;
+            r[i] = (int)s;
+            carry = s >>> 32;
+        }
+        for(; carry != 0; ++i) {
+            long s = (r[i] & LONG_MASK) + carry;
+            r[i] = (int)s;
+            carry = s >>> 32;
+        }
+    }
+
+    /**
+     * a * m, m read as unsigned
+     */
+    static int[] multiplyBySmall(int []a, int m) {
+        long ml = m & LONG_MASK;
+        int []r = new int[a.length + 1];
+        long carry = 0;
+        for(int i = 0; i < a.length; ++i) {
+            long p = (a[i] & LONG_MASK) * ml + carry;
+            r[i] = (int)p;
+            carry = p >>> 32;
+        }
+        r[a.length] = (int)carry;
+        return trim(r, r.length);
+    }
+
+    /**
+     * a / d, remainder dropped, d read as unsigned
+     */
+    static int[] divideBySmall(int []a, int d) {
+        long dl = d & LONG_MASK;
+        int []q = new int[a.length];
+        long rem = 0;
+        for(int i = a.length - 1; i >= 0; --i) {
+            long cur = (rem << 32) | (a[i] & LONG_MASK);
+            long qi = divideWord(cur, dl);
+            q[i] = (int)qi;
+            rem = cur - qi * dl;
+        }
+        return trim(q, q.length);
+    }
+
+    /**
+     * a % d, d read as unsigned
+     */
+    static int remainderBySmall(int []a, int d) {
+        long dl = d & LONG_MASK;
+        long rem = 0;
+        for(int i = a.length - 1; i >= 0; --i) {
+            long cur = (rem << 32) | (a[i] & LONG_MASK);
+            rem = cur - divideWord(cur, dl) * dl;
+        }
+        return (int)rem;
+    }
+
+    /**
+     * n / d with n read as unsigned and 0 < d < 2^32. Java 8 has no fast
+     * unsigned division, so when n does not fit in a signed long divide
+     * n / 2 instead: 2 * ((n / 2) / d) is the quotient or one less.
+     */
+    private static long divideWord(long n, long d) {
+        if(n >= 0)
+            return n / d;
+        long q = ((n >>> 1) / d) << 1;
+        return (n - q * d >= d) ? q + 1 : q; // the remainder is < 2d, no overflow
+    }
+
+    static int[] multiply(int []a, int []b) {
+        return multiply(a, b, false);
+    }
+
+    /**
+     * @param parallel fork the sub-products, only from a ForkJoinPool thread
+     */
+    private static int[] multiply(int []a, int []b, boolean parallel) {
+        if(a.length < b.length) {
+            int []t = a; a = b; b = t;
+        }
+        if(b.length < PARALLEL_THRESHOLD)
+            parallel = false;
+        if(b.length < KARATSUBA_THRESHOLD) {
+            if(a == b) {
+                int []r = new int[2 * a.length];
+                squareSchoolbook(a, a.length, r);
+                return trim(r, r.length);
+            }
+            return multiplySchoolbook(a, b);
+        }
+        if(a.length >= 2 * b.length)
+            return multiplyUnbalanced(a, b, parallel);
+        if(b.length < TOOM3_THRESHOLD)
+            return multiplyKaratsuba(a, b);
+        return multiplyToom3(a, b, parallel);
+    }
+
+    /**
+     * x[i] * y[i] for every i, all but the first one forked when parallel
+     */
+    private static int[][] multiplyAll(int [][]x, int [][]y, boolean parallel) {
+        int [][]r = new int[x.length][];
+        if(!parallel) {
+            for(int i = 0; i < x.length; ++i)
+                r[i] = multiply(x[i], y[i]);
+            return r;
+        }
+        MultiplyTask []tasks = new MultiplyTask[x.length];
+        for(int i = 1; i < x.length; ++i)
+            (tasks[i] = new MultiplyTask(x[i], y[i])).fork();
+        r[0] = new MultiplyTask(x[0], y[0]).compute();
+        for(int i = 1; i < x.length; ++i)
+            r[i] = tasks[i].join();
+        return r;
+    }
+
+    static int[] multiplySchoolbook(int []a, int []b) {
+        int []r = new int[a.length + b.length];
+        multiplySchoolbook(a, a.length, b, b.length, r);
+        return trim(r, r.length);
+    }
+
+    /**
+     * r = the first aLen words of a * the first bLen words of b,
+     * r must hold aLen + bLen zeros, and be neither a nor b
+     */
+    static void multiplySchoolbook(int []a, int aLen, int []b, int bLen, int []r) {
+        for(int i = 0; i < aLen; ++i) {
+            long ai = a[i] & LONG_MASK;
+            if(ai == 0)
+                continue;
+            long carry = 0;
+            for(int j = 0; j < bLen; ++j) {
                 int k = i + j;
-                product.words[k] += words[i] * other.words[j] + carry;
-                carry = product.words[k] / BASE;
-                product.words[k] %= BASE;
+                // (2^32 - 1)^2 + 2 * (2^32 - 1) still fits in 64 bits
+                long p = ai * (b[j] & LONG_MASK) + (r[k] & LONG_MASK) + carry;
+                r[k] = (int)p;
+                carry = p >>> 32;
             }
-            if(carry > 0)
-                product.words[i + other.length] += carry;
+            r[i + bLen] = (int)carry;
         }
+    }
 
-        product.length = length + other.length;
-        product.truncate();
-        return product;
+    /**
+     * r = the first aLen words of a squared, r must hold 2 * aLen zeros.
+     * a[i] * a[j] and a[j] * a[i] are the same, so add each of those once,
+     * double everything, then add the squares a[i]^2: about half the
+     * multiplications of multiplySchoolbook.
+     */
+    static void squareSchoolbook(int []a, int aLen, int []r) {
+        for(int i = 0; i < aLen; ++i) {
+            long ai = a[i] & LONG_MASK;
+            long carry = 0;
+            for(int j = i + 1; j < aLen; ++j) {
+                long p = ai * (a[j] & LONG_MASK) + (r[i + j] & LONG_MASK) + carry;
+                r[i + j] = (int)p;
+                carry = p >>> 32;
+            }
+            r[i + aLen] = (int)carry;
+        }
+
+        int high = 0;
+        for(int k = 0; k < 2 * aLen; ++k) {
+            int w = r[k];
+            r[k] = (w << 1) | high;
+            high = w >>> 31;
+        }
+
+        long carry = 0;
+        for(int i = 0; i < aLen; ++i) {
+            long ai = a[i] & LONG_MASK, sq = ai * ai;
+            long s = (r[2 * i] & LONG_MASK) + (sq & LONG_MASK) + carry;
+            r[2 * i] = (int)s;
+            s = (r[2 * i + 1] & LONG_MASK) + (sq >>> 32) + (s >>> 32);
+            r[2 * i + 1] = (int)s;
+            carry = s >>> 32;
+        }
     }
 
-    public MTBigInt subtract(MTBigInt other) {
-        int maxLen = Math.max(length, other.length);
-        MTBigInt rs = new MTBigInt(maxLen);
-        int carry = 0;
-        for(int i = 0; i < maxLen; ++i) {
-            int otherDigit = (i < other.length) ? other.words[i] : 0;
-            int dif = words[i] - otherDigit - carry;
-            if(dif < 0) {
-                dif += BASE;
-                carry += BASE;
+    /**
+     * a much longer than b: cut a in pieces as long as b,
+     * so that every product is balanced
+     */
+    private static int[] multiplyUnbalanced(int []a, int []b, boolean parallel) {
+        int pieces = (a.length + b.length - 1) / b.length;
+        int [][]x = new int[pieces][], y = new int[pieces][];
+        for(int i = 0; i < pieces; ++i) {
+            x[i] = slice(a, i * b.length, (i + 1) * b.length);
+            y[i] = b;
+        }
+        int [][]p = multiplyAll(x, y, parallel);
+        int []r = new int[a.length + b.length];
+        for(int i = 0; i < pieces; ++i)
+            addInto(r, p[i], i * b.length);
+        return trim(r, r.length);
+    }
+
+    /**
+     * With a = a1*X + a0 and b = b1*X + b0 (X = 2^(32 * half)):
+     * a*b = a1*b1*X^2 + ((a0 + a1)(b0 + b1) - a0*b0 - a1*b1)*X + a0*b0,
+     * 3 multiplications of half the size instead of 4
+     */
+    private static int[] multiplyKaratsuba(int []a, int []b) {
+        int half = (a.length + 1) / 2;
+        int []a0 = slice(a, 0, half), a1 = slice(a, half, a.length);
+        int []b0 = slice(b, 0, half), b1 = slice(b, half, b.length);
+
+        int []z0 = multiply(a0, b0);
+        int []z2 = multiply(a1, b1);
+        int []z1 = subtract(subtract(multiply(add(a0, a1), add(b0, b1)), z0), z2);
+
+        int []r = new int[a.length + b.length];
+        addInto(r, z0, 0);
+        addInto(r, z1, half);
+        addInto(r, z2, 2 * half);
+        return trim(r, r.length);
+    }
+
+    /**
+     * Split both in 3 pieces of k words: a(x) = a2*x^2 + a1*x + a0 with
+     * x = 2^(32k), same for b. The product r(x) = a(x)*b(x) has degree 4, so
+     * it is known from 5 values: r(0), r(1), r(2), r(3) and r(inf) = a2*b2,
+     * 5 multiplications of a third of the size instead of 9.
+     * The points are all >= 0, and so are the coefficients of r, so every
+     * step of the interpolation stays >= 0 and no sign is needed.
+     * References:
+     * - Modern Computer Arithmetic (Brent, Zimmermann), section 1.3.3
+     */
+    private static int[] multiplyToom3(int []a, int []b, boolean parallel) {
+        int k = (a.length + 2) / 3;
+        int []a0 = slice(a, 0, k), a1 = slice(a, k, 2 * k), a2 = slice(a, 2 * k, a.length);
+        int []b0 = slice(b, 0, k), b1 = slice(b, k, 2 * k), b2 = slice(b, 2 * k, b.length);
+
+        int [][]v = multiplyAll(
+                new int[][] {a0, add(add(a0, a1), a2), evaluate(a0, a1, a2, 2), evaluate(a0, a1, a2, 3), a2},
+                new int[][] {b0, add(add(b0, b1), b2), evaluate(b0, b1, b2, 2), evaluate(b0, b1, b2, 3), b2},
+                parallel);
+        int []v0 = v[0], v1 = v[1], v2 = v[2], v3 = v[3], vInf = v[4];
+
+        // r(x) = r4*x^4 + r3*x^3 + r2*x^2 + r1*x + r0, r0 = v0, r4 = vInf
+        int []w1 = subtract(subtract(v1, v0), vInf);                                   // r1 + r2 + r3
+        int []w2 = divideBySmall(subtract(subtract(v2, v0), multiplyBySmall(vInf, 16)), 2); // r1 + 2r2 + 4r3
+        int []w3 = divideBySmall(subtract(subtract(v3, v0), multiplyBySmall(vInf, 81)), 3); // r1 + 3r2 + 9r3
+        int []d1 = subtract(w2, w1); // r2 + 3r3
+        int []d2 = subtract(w3, w2); // r2 + 5r3
+        int []r3 = divideBySmall(subtract(d2, d1), 2);
+        int []r2 = subtract(d1, multiplyBySmall(r3, 3));
+        int []r1 = subtract(subtract(w1, r2), r3);
+
+        int []r = new int[a.length + b.length];
+        addInto(r, v0, 0);
+        addInto(r, r1, k);
+        addInto(r, r2, 2 * k);
+        addInto(r, r3, 3 * k);
+        addInto(r, vInf, 4 * k);
+        return trim(r, r.length);
+    }
+
+    static int[][] divideAndRemainder(int []a, int []b) {
+        return divideAndRemainder(a, b, false);
+    }
+
+    /**
+     * @param parallel fork the sub-products of Burnikel-Ziegler, only from
+     *                 a ForkJoinPool thread
+     */
+    private static int[][] divideAndRemainder(int []a, int []b, boolean parallel) {
+        if(b.length == 0)
+            throw new ArithmeticException("Division by zero");
+        if(b.length < BURNIKEL_ZIEGLER_THRESHOLD || a.length - b.length < BURNIKEL_ZIEGLER_OFFSET)
+            return divideKnuth(a, b);
+        return divideBurnikelZiegler(a, b, parallel);
+    }
+
+    /**
+     * Schoolbook long division, one quotient word at a time. Each word is
+     * estimated from the top 2 words of the remainder and the top word of
+     * the divisor, which is shifted left until its top bit is set so that
+     * the estimate is never more than 2 too big; the next words correct it
+     * almost always, and the rare last error is fixed by adding back.
+     * References:
+     * - The Art of Computer Programming vol. 2 (Knuth), 4.3.1 Algorithm D
+     */
+    private static int[][] divideKnuth(int []a, int []b) {
+        if(compare(a, b) < 0)
+            return new int[][] {new int[0], a};
+        if(b.length == 1) {
+            int rem = remainderBySmall(a, b[0]);
+            return new int[][] {divideBySmall(a, b[0]), (rem == 0) ? new int[0] : new int[] {rem}};
+        }
+
+        int n = b.length, m = a.length - n;
+        int shift = Integer.numberOfLeadingZeros(b[n - 1]);
+        int []u = Arrays.copyOf(shiftLeft(a, shift), a.length + 1);
+        int []v = shiftLeft(b, shift); // still n words
+        long vTop = v[n - 1] & LONG_MASK, vNext = v[n - 2] & LONG_MASK;
+
+        int []q = new int[m + 1];
+        for(int j = m; j >= 0; --j) {
+            long num = ((u[j + n] & LONG_MASK) << 32) | (u[j + n - 1] & LONG_MASK);
+            long qHat = divideWord(num, vTop), rHat = num - qHat * vTop;
+            while(qHat > LONG_MASK || Long.compareUnsigned(qHat * vNext, (rHat << 32) | (u[j + n - 2] & LONG_MASK)) > 0) {
+                qHat--;
+                rHat += vTop;
+                if(rHat > LONG_MASK)
+                    break;
+            }
+
+            // u[j..j+n] -= qHat * v
+            long carry = 0, borrow = 0;
+            for(int i = 0; i < n; ++i) {
+                long p = qHat * (v[i] & LONG_MASK) + carry;
+                carry = p >>> 32;
+                long t = (u[i + j] & LONG_MASK) - (p & LONG_MASK) - borrow;
+                u[i + j] = (int)t;
+                borrow = t >>> 63;
+            }
+            long top = (u[j + n] & LONG_MASK) - carry - borrow;
+            if(top < 0) { // qHat was still 1 too big, add v back
+                qHat--;
+                carry = 0;
+                for(int i = 0; i < n; ++i) {
+                    long t = (u[i + j] & LONG_MASK) + (v[i] & LONG_MASK) + carry;
+                    u[i + j] = (int)t;
+                    carry = t >>> 32;
+                }
+                top += carry; // the borrow cancels out
             }
-            rs.words[i] = dif;
+            u[j + n] = (int)top;
+            q[j] = (int)qHat;
         }
+        int []r = shiftRight(trim(u, n), shift); // undo the normalization
+        return new int[][] {trim(q, q.length), r};
+    }
+
+    /**
+     * Recursive division: the divisor is cut in halves and a 2n by n
+     * division becomes two 3/2 divisions, each one a division of half the
+     * size plus one multiplication, so division costs about as much as
+     * multiplication (Karatsuba/Toom-3) instead of O(n^2).
+     * b is first padded to n = j * 2^k words (j < threshold) and normalized
+     * like in divideKnuth, then a is divided n words at a time.
+     * References:
+     * - Fast Recursive Division (Burnikel, Ziegler), MPI-I-98-1-022
+     */
+    private static int[][] divideBurnikelZiegler(int []a, int []b, boolean parallel) {
+        int m = 1 << (32 - Integer.numberOfLeadingZeros(b.length / BURNIKEL_ZIEGLER_THRESHOLD));
+        int j = (b.length + m - 1) / m;
+        int n = j * m;
+        int sigma = 32 * (n - b.length) + Integer.numberOfLeadingZeros(b[b.length - 1]);
+        int []bs = shiftLeft(b, sigma); // n words, top bit set
+        int []as = shiftLeft(a, sigma);
+
+        // One block more than needed, so that the top block is < bs
+        int t = Math.max((as.length + n) / n, 2);
+        int []z = slice(as, (t - 2) * n, t * n);
+        int []q = new int[(t - 1) * n + 1];
+        for(int i = t - 2; i > 0; --i) {
+            int [][]qr = divide2n1n(z, bs, n, parallel);
+            addInto(q, qr[0], i * n);
+            z = add(shiftWords(qr[1], n), slice(as, (i - 1) * n, i * n));
+        }
+        int [][]qr = divide2n1n(z, bs, n, parallel);
+        addInto(q, qr[0], 0);
 
-        rs.truncate();
-        return rs;
+        int []r = shiftRight(qr[1], sigma);
+        return new int[][] {trim(q, q.length), r};
     }
 
-    public MTBigInt divide(MTBigInt other) {
-        MTBigInt tmp = new MTBigInt(length);
-        MTBigInt rs = new MTBigInt(length);
-        for(int i = length - 1, j = 0; i >= 0; --i, ++j) {
-            tmp.append(words[i]);
-            int low = 1, hi = BASE - 1;
-            while(low <= hi) {
-                int mid = (low + hi) >>> 1;
-                MTBigInt bm = MTBigInt.valueOf(mid);
-                if(tmp.compareTo(other.multiply(bm)) < 0)
-                    hi = mid - 1;
-                else
-                    low = mid + 1;
-            }
-            rs.append(hi);
-            tmp = tmp.subtract(other.multiply(MTBigInt.valueOf(hi)));
-        }
-        rs.truncate();
-        return rs;
-    }
-
-    private void append(int val) {
-        if(length + 1 >= words.length)
-            grow();
-        System.arraycopy(words, 0, words, 1, length);
-        words[0] = val;
-        length++;
+    /**
+     * a / b where b has n words and a < b * 2^(32n)
+     */
+    private static int[][] divide2n1n(int []a, int []b, int n, boolean parallel) {
+        if((n & 1) != 0 || n < BURNIKEL_ZIEGLER_THRESHOLD)
+            return divideKnuth(a, b);
 
-        truncate();
+        int h = n / 2;
+        int [][]qr1 = divide3n2n(slice(a, h, 4 * h), b, h, parallel);
+        int [][]qr2 = divide3n2n(add(shiftWords(qr1[1], h), slice(a, 0, h)), b, h, parallel);
+        int []q = add(shiftWords(qr1[0], h), qr2[0]);
+        return new int[][] {q, qr2[1]};
     }
 
-    private void grow() {
-        int oldCap = words.length;
-        int newCap = oldCap << 1;
+    /**
+     * a / b where b has 2h words and a < b * 2^(32h) (3h words at most):
+     * divide the top 2h words of a by the top half of b, then correct
+     */
+    private static int[][] divide3n2n(int []a, int []b, int h, boolean parallel) {
+        int []b1 = slice(b, h, 2 * h), b2 = slice(b, 0, h);
+        int []a12 = slice(a, h, 3 * h), a3 = slice(a, 0, h);
+
+        int []q, r1;
+        if(compare(slice(a, 2 * h, 3 * h), b1) < 0) {
+            int [][]qr = divide2n1n(a12, b1, h, parallel);
+            q = qr[0];
+            r1 = qr[1];
+        }
+        else { // q = 2^(32h) - 1
+            q = new int[h];
+            Arrays.fill(q, -1);
+            r1 = subtract(add(a12, b1), shiftWords(b1, h));
+        }
+
+        int []dq = multiply(q, b2, parallel);
+        int []r = add(shiftWords(r1, h), a3);
+        while(compare(r, dq) < 0) { // at most twice
+            r = add(r, b);
+            q = subtract(q, ONE);
+        }
+        return new int[][] {q, subtract(r, dq)};
+    }
+
+    /**
+     * Euclid while the lengths are far apart, so that one division
+     * removes many words at once, then binary GCD which only subtracts
+     * and shifts
+     */
+    static int[] gcd(int []a, int []b) {
+        while(b.length != 0) {
+            if(Math.abs(a.length - b.length) < 2)
+                return binaryGcd(a, b);
+            int []r = divideAndRemainder(a, b)[1];
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /**
+     * gcd(u, v) = gcd(u - v, v), and = gcd(u / 2, v) when only u is even
+     * References:
+     * - The Art of Computer Programming vol. 2 (Knuth), 4.5.2 Algorithm B
+     */
+    private static int[] binaryGcd(int []a, int []b) {
+        if(a.length == 0)
+            return b;
+        if(b.length == 0)
+            return a;
+        int za = lowestSetBit(a), zb = lowestSetBit(b);
+        int []u = shiftRight(a, za), v = shiftRight(b, zb);
+        for(int c; (c = compare(u, v)) != 0; ) { // both odd
+            if(c > 0) {
+                u = subtract(u, v);
+                u = shiftRight(u, lowestSetBit(u));
+            }
+            else {
+                v = subtract(v, u);
+                v = shiftRight(v, lowestSetBit(v));
+            }
+        }
+        return shiftLeft(u, Math.min(za, zb));
+    }
+
+    /**
+     * Index of the lowest 1 bit, a must not be 0
+     */
+    private static int lowestSetBit(int []a) {
+        int i = 0;
+        while(a[i] == 0)
+            i++;
+        return 32 * i + Integer.numberOfTrailingZeros(a[i]);
+    }
+
+    /**
+     * Extended Euclid on a < m: r(i+1) = r(i-1) - q(i) * r(i) and
+     * t(i+1) = t(i-1) - q(i) * t(i), with a * t(i) = r(i) mod m.
+     * There is no negative magnitude, but the signs of t alternate
+     * (0, 1, -q1, ...), so |t(i+1)| = |t(i-1)| + q(i) * |t(i)| and the sign
+     * is kept aside.
+     */
+    private static int[] modInverse(int []a, int []m) {
+        int []r0 = m, r1 = a;
+        int []t0 = new int[0], t1 = ONE;
+        boolean t0Negative = false, t1Negative = false;
+        while(r1.length != 0) {
+            int [][]qr = divideAndRemainder(r0, r1);
+            int []t2 = add(t0, multiply(qr[0], t1));
+            r0 = r1;
+            r1 = qr[1];
+            t0 = t1;
+            t1 = t2;
+            t0Negative = t1Negative;
+            t1Negative = !t1Negative;
+        }
+        if(compare(r0, ONE) != 0)
+            throw new ArithmeticException("Not invertible");
+        return t0Negative ? subtract(m, t0) : t0;
+    }
+
+    /**
+     * Bits of exponent per window, by exponent bit length, the same as
+     * BigInteger: a window of k bits costs 2^(k-1) products up front
+     */
+    private static final int []WINDOW_THRESHOLDS = {7, 25, 81, 241, 673, 1793, Integer.MAX_VALUE};
+
+    /**
+     * Sliding window exponentiation from the top bit: square for every
+     * bit, but multiply only once per window of up to k bits that starts
+     * and ends with a 1, by one of the odd powers base^1, base^3, ...,
+     * base^(2^k - 1) computed up front
+     * @param one 1 in the representation that mul works on
+     */
+    private static int[] windowPow(int []base, int []e, int []one, BinaryOperator<int[]> mul) {
+        int bits = bitLength(e), k = 1;
+        while(bits > WINDOW_THRESHOLDS[k - 1])
+            k++;
+
+        int [][]odd = new int[1 << (k - 1)][]; // odd[i] = base^(2i + 1)
+        odd[0] = base;
+        if(k > 1) {
+            int []base2 = mul.apply(base, base);
+            for(int i = 1; i < odd.length; ++i)
+                odd[i] = mul.apply(odd[i - 1], base2);
+        }
+
+        int []r = one;
+        boolean started = false;
+        for(int i = bits - 1; i >= 0; ) {
+            if(!testBit(e, i)) {
+                if(started)
+                    r = mul.apply(r, r);
+                i--;
+                continue;
+            }
+            int low = Math.max(i - k + 1, 0);
+            while(!testBit(e, low)) // the window ends with a 1
+                low++;
+            int window = 0;
+            for(int j = i; j >= low; --j) {
+                window = (window << 1) | (testBit(e, j) ? 1 : 0);
+                if(started)
+                    r = mul.apply(r, r);
+            }
+            r = started ? mul.apply(r, odd[window >>> 1]) : odd[window >>> 1];
+            started = true;
+            i = low - 1;
+        }
+        return r;
+    }
+
+    private static int[] modPowDivide(int []base, int []e, int []m) {
+        return windowPow(base, e, ONE, (x, y) -> divideAndRemainder(multiply(x, y), m)[1]);
+    }
+
+    /**
+     * For an odd m of n words and R = 2^(32n), the Montgomery form of x is
+     * xR mod m. The product of two forms, divided by R, is the form of the
+     * product, and dividing by R mod m needs no division: add the multiple
+     * of m that makes the low word 0, drop that word, n times. Only the
+     * conversions in and out do a real division.
+     * References:
+     * - Modular Multiplication Without Trial Division (Montgomery), Math. Comp. 44
+     */
+    private static int[] modPowMontgomery(int []base, int []e, int []m) {
+        int n = m.length;
+        int mInv = -inverseWord(m[0]);
+        int []t = new int[2 * n + 1];
+        BinaryOperator<int[]> mul = (x, y) -> montgomeryMultiply(x, y, m, mInv, t);
+
+        int []one = Arrays.copyOf(divideAndRemainder(shiftWords(ONE, n), m)[1], n); // R mod m
+        int []x = Arrays.copyOf(divideAndRemainder(shiftWords(base, n), m)[1], n);
+        int []r = windowPow(x, e, one, mul);
+        return trim(mul.apply(r, Arrays.copyOf(ONE, n)), n); // times 1 / R, out of the form
+    }
+
+    /**
+     * x * y / R mod m, x, y < m, all n words long including leading zeros
+     * @param t scratch space of 2n + 1 words
+     */
+    private static int[] montgomeryMultiply(int []x, int []y, int []m, int mInv, int []t) {
+        int n = m.length;
+        Arrays.fill(t, 0);
+        if(n < KARATSUBA_THRESHOLD && x == y)
+            squareSchoolbook(x, n, t);
+        else if(n < KARATSUBA_THRESHOLD)
+            multiplySchoolbook(x, n, y, n, t);
+        else {
+            int []p = multiply(trim(x, n), trim(y, n));
+            System.arraycopy(p, 0, t, 0, p.length);
+        }
+
+        for(int i = 0; i < n; ++i) { // t += u * m * 2^(32i) with u chosen so that t[i] becomes 0
+            long u = (t[i] * mInv) & LONG_MASK;
+            long carry = 0;
+            for(int j = 0; j < n; ++j) {
+                long p = u * (m[j] & LONG_MASK) + (t[i + j] & LONG_MASK) + carry;
+                t[i + j] = (int)p;
+                carry = p >>> 32;
+            }
+            for(int k = i + n; carry != 0; ++k) {
+                long s = (t[k] & LONG_MASK) + carry;
+                t[k] = (int)s;
+                carry = s >>> 32;
+            }
+        }
+
+        int []r = Arrays.copyOfRange(t, n, 2 * n); // t / R < 2m
+        if(t[2 * n] != 0 || compare(trim(r, n), m) >= 0) {
+            long borrow = 0;
+            for(int i = 0; i < n; ++i) {
+                long d = (r[i] & LONG_MASK) - (m[i] & LONG_MASK) - borrow;
+                r[i] = (int)d;
+                borrow = d >>> 63;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * x^-1 mod 2^32 for an odd x: x * x = 1 mod 8, and every Newton step
+     * y = y * (2 - x * y) doubles the number of correct bits
+     */
+    private static int inverseWord(int x) {
+        int y = x;
+        for(int i = 0; i < 4; ++i)
+            y *= 2 - x * y;
+        return y;
+    }
+
+    static int bitLength(int []a) {
+        return (a.length == 0) ? 0 : 32 * a.length - Integer.numberOfLeadingZeros(a[a.length - 1]);
+    }
+
+    private static boolean testBit(int []a, int n) {
+        return (a[n >>> 5] >>> (n & 31) & 1) != 0;
+    }
+
+    /**
+     * a * 2^(32k)
+     */
+    private static int[] shiftWords(int []a, int k) {
+        if(a.length == 0 || k == 0)
+            return a;
+        int []r = new int[a.length + k];
+        System.arraycopy(a, 0, r, k, a.length);
+        return r;
+    }
+
+    /**
+     * a * 2^n
+     */
+    static int[] shiftLeft(int []a, int n) {
+        if(a.length == 0 || n == 0)
+            return a;
+        int w = n >>> 5, bits = n & 31;
+        int []r = new int[a.length + w + 1];
+        if(bits == 0)
+            System.arraycopy(a, 0, r, w, a.length);
+        else {
+            for(int i = 0; i < a.length; ++i) {
+                r[i + w] |= a[i] << bits;
+                r[i + w + 1] = a[i] >>> (32 - bits);
+            }
+        }
+        return trim(r, r.length);
+    }
+
+    /**
+     * a / 2^n
+     */
+    static int[] shiftRight(int []a, int n) {
+        int w = n >>> 5, bits = n & 31;
+        if(w >= a.length)
+            return new int[0];
+        int []r = new int[a.length - w];
+        if(bits == 0)
+            System.arraycopy(a, w, r, 0, r.length);
+        else {
+            for(int i = 0; i < r.length; ++i) {
+                r[i] = a[i + w] >>> bits;
+                if(i + w + 1 < a.length)
+                    r[i] |= a[i + w + 1] << (32 - bits);
+            }
+        }
+        return trim(r, r.length);
+    }
+
+    static int compare(int []a, int []b) {
+        if(a.length != b.length)
+            return Integer.compare(a.length, b.length);
+        for(int i = a.length - 1; i >= 0; --i)
+            if(a[i] != b[i])
+                return Integer.compareUnsigned(a[i], b[i]);
+        return 0;
+    }
+
+    /**
+     * p2*x^2 + p1*x + p0
+     */
+    private static int[] evaluate(int []p0, int []p1, int []p2, int x) {
+        return add(p0, multiplyBySmall(add(p1, multiplyBySmall(p2, x)), x));
+    }
+
+    /**
+     * Words [from, to) of a, past the end of a counts as 0
+     */
+    private static int[] slice(int []a, int from, int to) {
+        to = Math.min(to, a.length);
+        if(from >= to)
+            return new int[0];
+        int []r = Arrays.copyOfRange(a, from, to);
+        return trim(r, r.length);
+    }
 
-        // transfer
-        int []newArr = new int[newCap];
-        System.arraycopy(words, 0, newArr, 0, length);
-        words = newArr;
+    private static int[] trim(int []a, int len) {
+        while(len > 0 && a[len - 1] == 0)
+            len--;
+        return (len == a.length) ? a : Arrays.copyOf(a, len);
     }
 
     @Override
@@ -117,7 +951,7 @@ public class MTBigInt implements Comparable<MTBigInt> {
             return Integer.compare(length, o.length);
         for(int i = length - 1; i >= 0; --i)
             if(words[i] != o.words[i])
-                return Integer.compare(words[i], o.words[i]);
+                return Integer.compareUnsigned(words[i], o.words[i]);
         return 0;
     }
 
@@ -139,25 +973,290 @@ public class MTBigInt implements Comparable<MTBigInt> {
     public static MTBigInt ZERO = new MTBigInt();
 
     public static MTBigInt valueOf(int val) {
-        int len = (val == 0) ? 1 : 0;
-        for(int i = val; i > 0; i /= BASE)
-            len++;
+        if(val < 0)
+            throw new ArithmeticException("Negative value: " + val);
+        MTBigInt bi = new MTBigInt(1);
+        bi.words[0] = val;
+        bi.length = (val == 0) ? 0 : 1;
+        return bi;
+    }
 
-        MTBigInt bi = new MTBigInt(len);
-        int i;
-        for(i = 0; val > 0; ++i, val /= BASE)
-            bi.words[i] = val % BASE;
-        bi.length = i;
+    /**
+     * @param s decimal digits only
+     * @throws NumberFormatException if s is empty or has anything else
+     */
+    public static MTBigInt parse(CharSequence s) {
+        checkDigits(s);
+        return new MTBigInt(parse(s, 0, s.length()));
+    }
 
-        return bi;
+    /**
+     * parse with both halves of big numbers converted in parallel
+     * on the common pool
+     */
+    public static MTBigInt parallelParse(CharSequence s) {
+        return parallelParse(s, ForkJoinPool.commonPool());
+    }
+
+    public static MTBigInt parallelParse(CharSequence s, ForkJoinPool pool) {
+        checkDigits(s);
+        int len = s.length();
+        if(len <= RADIX_THRESHOLD * 9) // not split, nothing to run in parallel
+            return new MTBigInt(parse(s, 0, len));
+        powerOfTen(31 - Integer.numberOfLeadingZeros((len - 1) / 9)); // fill the cache before the tasks race for it
+        return new MTBigInt(pool.invoke(new ParseTask(s, 0, len)));
+    }
+
+    private static void checkDigits(CharSequence s) {
+        int len = s.length();
+        if(len == 0)
+            throw new NumberFormatException("Zero length MTBigInt");
+        for(int i = 0; i < len; ++i) {
+            char c = s.charAt(i);
+            if(c < '0' || c > '9')
+                throw new NumberFormatException("For input string: \"" + s + "\"");
+        }
+    }
+
+    /**
+     * Digits [from, to) of s: the high digits times 10^(9 * 2^k) plus the
+     * low 9 * 2^k digits, so the cost is a few multiplications of half the
+     * size at every level instead of one multiplyBySmall per 9 digits
+     */
+    private static int[] parse(CharSequence s, int from, int to) {
+        int len = to - from;
+        if(len <= RADIX_THRESHOLD * 9) {
+            int []r = new int[0];
+            int end = from + (len - 1) % 9 + 1; // the first chunk is the short one
+            for(int i = from; i < to; i = end, end += 9) {
+                int chunk = 0;
+                for(int j = i; j < end; ++j)
+                    chunk = chunk * 10 + (s.charAt(j) - '0');
+                r = multiplyBySmall(r, TEN_POW_9);
+                if(chunk != 0)
+                    r = add(r, new int[] {chunk});
+            }
+            return r;
+        }
+        int k = 31 - Integer.numberOfLeadingZeros((len - 1) / 9);
+        int low = 9 << k; // < len
+        int []hi = parse(s, from, to - low), lo = parse(s, to - low, to);
+        return add(multiply(hi, powerOfTen(k)), lo);
+    }
+
+    /**
+     * 10^(9 * 2^k)
+     */
+    private static int[] powerOfTen(int k) {
+        int [][]cache = powersOfTen;
+        if(k < cache.length)
+            return cache[k];
+        int n = cache.length;
+        cache = Arrays.copyOf(cache, k + 1);
+        for(int i = n; i <= k; ++i)
+            cache[i] = multiply(cache[i - 1], cache[i - 1]);
+        powersOfTen = cache;
+        return cache[k];
+    }
+
+    /**
+     * Big-endian bytes of the value, without a sign byte, the same as
+     * BigInteger.toByteArray() of a positive number minus its leading 0.
+     * Zero is the empty array.
+     */
+    public byte[] toByteArray() {
+        if(length == 0)
+            return new byte[0];
+        int topBytes = (39 - Integer.numberOfLeadingZeros(words[length - 1])) / 8;
+        byte []bytes = new byte[(length - 1) * 4 + topBytes];
+        for(int i = 0, pos = bytes.length - 1; i < length; ++i) {
+            int w = words[i];
+            for(int j = 0; j < 4 && pos >= 0; ++j, w >>>= 8)
+                bytes[pos--] = (byte)w;
+        }
+        return bytes;
+    }
+
+    /**
+     * Read the big-endian bytes written by toByteArray, or by
+     * BigInteger.toByteArray() of a non-negative number
+     */
+    public static MTBigInt fromByteArray(byte []bytes) {
+        int []mag = new int[(bytes.length + 3) / 4];
+        for(int i = 0, pos = bytes.length - 1; pos >= 0; ++i)
+            for(int j = 0; j < 32 && pos >= 0; j += 8)
+                mag[i] |= (bytes[pos--] & 0xff) << j;
+        return new MTBigInt(mag);
+    }
+
+    /**
+     * Decimal, the same as toString, without building the String
+     */
+    public void writeTo(Appendable out) throws IOException {
+        if(length == 0)
+            out.append('0');
+        else
+            writeDecimal(mag(), out, 0);
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < length; ++i) {
-            sb.insert(0, (i < length - 1) ? String.format("%04d", words[i]) : words[i]);
+        try {
+            writeTo(sb);
+        }
+        catch(IOException e) { // StringBuilder never throws it
+            throw new UncheckedIOException(e);
         }
         return sb.toString();
     }
+
+    /**
+     * toString with both halves of big numbers converted in parallel
+     * on the common pool
+     */
+    public String parallelToString() {
+        return parallelToString(ForkJoinPool.commonPool());
+    }
+
+    public String parallelToString(ForkJoinPool pool) {
+        if(length < RADIX_THRESHOLD) // not split, nothing to run in parallel
+            return toString();
+        powerOfTen(decimalSplit(length)); // fill the cache before the tasks race for it
+        return pool.invoke(new ToStringTask(mag(), 0)).toString();
+    }
+
+    /**
+     * k such that 10^(9 * 2^k) is about the square root of a number of
+     * n words, as 2^32 < 10^(9 * 16 / 30)
+     */
+    private static int decimalSplit(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n * 16 / 30);
+    }
+
+    /**
+     * a = q * 10^(9 * 2^k) + r, with 10^(9 * 2^k) about sqrt(a): write q,
+     * then r padded to 9 * 2^k digits. Like parse, this is a few divisions
+     * of half the size at every level.
+     * @param digits pad with leading zeros to that many digits, 0 for none
+     */
+    private static void writeDecimal(int []a, Appendable out, int digits) throws IOException {
+        if(a.length < RADIX_THRESHOLD) {
+            writeSmall(a, out, digits);
+            return;
+        }
+        int k = decimalSplit(a.length);
+        int [][]qr = divideAndRemainder(a, powerOfTen(k));
+        int low = 9 << k;
+        if(qr[0].length == 0)
+            writeDecimal(qr[1], out, digits);
+        else {
+            writeDecimal(qr[0], out, (digits == 0) ? 0 : digits - low);
+            writeDecimal(qr[1], out, low);
+        }
+    }
+
+    private static void writeSmall(int []a, Appendable out, int digits) throws IOException {
+        int []chunks = new int[a.length * 32 / 29 + 1]; // 10^9 > 2^29
+        int n = 0;
+        while(a.length > 0) {
+            chunks[n++] = remainderBySmall(a, TEN_POW_9);
+            a = divideBySmall(a, TEN_POW_9);
+        }
+        StringBuilder sb = new StringBuilder(n * 9);
+        if(n > 0)
+            sb.append(chunks[n - 1]);
+        for(int i = n - 2; i >= 0; --i) {
+            String s = Integer.toString(chunks[i]);
+            for(int j = s.length(); j < 9; ++j)
+                sb.append('0');
+            sb.append(s);
+        }
+        for(int i = sb.length(); i < digits; ++i)
+            out.append('0');
+        out.append(sb);
+    }
+
+    static class MultiplyTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        final int []a, b;
+
+        MultiplyTask(int []a, int []b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        protected int[] compute() {
+            return multiply(a, b, true);
+        }
+    }
+
+    /**
+     * Like parse(s, from, to), the high digits forked
+     */
+    static class ParseTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        final CharSequence s;
+        final int from, to;
+
+        ParseTask(CharSequence s, int from, int to) {
+            this.s = s;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            int len = to - from;
+            if(len <= PARALLEL_THRESHOLD * 9)
+                return parse(s, from, to);
+            int k = 31 - Integer.numberOfLeadingZeros((len - 1) / 9);
+            int low = 9 << k;
+            ParseTask hi = new ParseTask(s, from, to - low);
+            hi.fork();
+            int []lo = new ParseTask(s, to - low, to).compute();
+            return add(multiply(hi.join(), powerOfTen(k), true), lo);
+        }
+    }
+
+    /**
+     * Like writeDecimal, q forked, each half into its own StringBuilder
+     */
+    static class ToStringTask extends RecursiveTask<StringBuilder> {
+        private static final long serialVersionUID = 1L;
+
+        final int []a;
+        final int digits;
+
+        ToStringTask(int []a, int digits) {
+            this.a = a;
+            this.digits = digits;
+        }
+
+        @Override
+        protected StringBuilder compute() {
+            if(a.length < PARALLEL_THRESHOLD) {
+                StringBuilder sb = new StringBuilder();
+                try {
+                    writeDecimal(a, sb, digits);
+                }
+                catch(IOException e) { // StringBuilder never throws it
+                    throw new UncheckedIOException(e);
+                }
+                return sb;
+            }
+            int k = decimalSplit(a.length);
+            int [][]qr = divideAndRemainder(a, powerOfTen(k), true);
+            int low = 9 << k;
+            if(qr[0].length == 0)
+                return new ToStringTask(qr[1], digits).compute();
+            ToStringTask hi = new ToStringTask(qr[0], (digits == 0) ? 0 : digits - low);
+            hi.fork();
+            StringBuilder lo = new ToStringTask(qr[1], low).compute();
+            return hi.join().append(lo);
+        }
+    }
 }
@@ -0,0 +1,207 @@
+package com.company;
+
+import java.util.Arrays;
+
+import static com.company.MTBigInt.LONG_MASK;
+
+/**
+ * MTBigInt that is changed in place, to accumulate without creating a
+ * new number at every step. The words live in an array that grows like
+ * MTArrayList and never shrinks, and multiplyInPlace keeps its scratch
+ * array too, so once both are big enough a loop of addInPlace,
+ * multiplyBySmall, shiftLeft and small multiplyInPlace allocates nothing.
+ * Not thread-safe.
+ */
+public class MTMutableBigInt {
+    static final int DEFAULT_CAPACITY = 4;
+    static final int[] EMPTY = {};
+
+    private int []value; // same layout as MTBigInt.words, garbage past length
+    private int length;
+    private int []scratch = EMPTY;
+    private final int []small = new int[2]; // addInPlace(long)
+
+    public MTMutableBigInt() {
+        value = new int[DEFAULT_CAPACITY];
+    }
+
+    public MTMutableBigInt(MTBigInt val) {
+        value = new int[Math.max(DEFAULT_CAPACITY, val.length)];
+        set(val);
+    }
+
+    public MTMutableBigInt set(MTBigInt val) {
+        ensureCapacity(val.length);
+        System.arraycopy(val.words, 0, value, 0, val.length);
+        length = val.length;
+        return this;
+    }
+
+    /**
+     * Back to 0, keeping the arrays
+     */
+    public MTMutableBigInt clear() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * A copy of the current value
+     */
+    public MTBigInt toBigInt() {
+        return new MTBigInt(Arrays.copyOf(value, length));
+    }
+
+    public boolean isZero() {
+        return length == 0;
+    }
+
+    public MTMutableBigInt addInPlace(MTBigInt other) {
+        return addInPlace(other.words, other.length);
+    }
+
+    public MTMutableBigInt addInPlace(MTMutableBigInt other) {
+        return addInPlace(other.value, other.length);
+    }
+
+    /**
+     * @throws ArithmeticException if val is negative
+     */
+    public MTMutableBigInt addInPlace(long val) {
+        if(val < 0)
+            throw new ArithmeticException("Negative value: " + val);
+        small[0] = (int)val;
+        small[1] = (int)(val >>> 32);
+        return addInPlace(small, (small[1] != 0) ? 2 : (small[0] != 0) ? 1 : 0);
+    }
+
+    /**
+     * this += the first bLen words of b, b may be value itself
+     */
+    private MTMutableBigInt addInPlace(int []b, int bLen) {
+        ensureCapacity(Math.max(length, bLen) + 1);
+        int common = Math.min(length, bLen);
+        long carry = 0;
+        int i = 0;
+        for(; i < common; ++i) {
+            long s = (value[i] & LONG_MASK) + (b[i] & LONG_MASK) + carry;
+            value[i] = (int)s;
+            carry = s >>> 32;
+        }
+        for(; i < bLen; ++i) {
+            long s = (b[i] & LONG_MASK) + carry;
+            value[i] = (int)s;
+            carry = s >>> 32;
+        }
+        // Stop as soon as there is no carry, the rest is unchanged
+        for(; carry != 0 && i < length; ++i) {
+            long s = (value[i] & LONG_MASK) + carry;
+            value[i] = (int)s;
+            carry = s >>> 32;
+        }
+        if(i > length)
+            length = i;
+        if(carry != 0)
+            value[length++] = (int)carry;
+        return this;
+    }
+
+    /**
+     * this *= m, m read as unsigned
+     */
+    public MTMutableBigInt multiplyBySmall(int m) {
+        long ml = m & LONG_MASK;
+        if(ml == 0) {
+            length = 0;
+            return this;
+        }
+        ensureCapacity(length + 1);
+        long carry = 0;
+        for(int i = 0; i < length; ++i) {
+            long p = (value[i] & LONG_MASK) * ml + carry;
+            value[i] = (int)p;
+            carry = p >>> 32;
+        }
+        if(carry != 0)
+            value[length++] = (int)carry;
+        return this;
+    }
+
+    /**
+     * this *= other, in the scratch array then swapped with the value.
+     * Above MTBigInt.KARATSUBA_THRESHOLD words this goes through
+     * MTBigInt.multiply, which does allocate.
+     */
+    public MTMutableBigInt multiplyInPlace(MTBigInt other) {
+        if(length == 0 || other.length == 0) {
+            length = 0;
+            return this;
+        }
+        int n = length + other.length;
+        if(Math.min(length, other.length) >= MTBigInt.KARATSUBA_THRESHOLD) {
+            int []r = MTBigInt.multiply(Arrays.copyOf(value, length), other.mag());
+            ensureCapacity(r.length);
+            System.arraycopy(r, 0, value, 0, r.length);
+            length = r.length;
+            return this;
+        }
+
+        if(scratch.length < n)
+            scratch = new int[Math.max(n, value.length)];
+        Arrays.fill(scratch, 0, n, 0);
+        MTBigInt.multiplySchoolbook(value, length, other.words, other.length, scratch);
+        int []t = value;
+        value = scratch;
+        scratch = t;
+        length = n;
+        truncate();
+        return this;
+    }
+
+    /**
+     * this *= 2^n
+     */
+    public MTMutableBigInt shiftLeft(int n) {
+        if(n < 0)
+            throw new IllegalArgumentException("n = " + n);
+        if(length == 0 || n == 0)
+            return this;
+        int w = n >>> 5, bits = n & 31;
+        ensureCapacity(length + w + 1);
+        if(bits == 0)
+            System.arraycopy(value, 0, value, w, length);
+        else { // from the top down, so that nothing is overwritten before it is read
+            value[length + w] = value[length - 1] >>> (32 - bits);
+            for(int i = length - 1; i > 0; --i)
+                value[i + w] = (value[i] << bits) | (value[i - 1] >>> (32 - bits));
+            value[w] = value[0] << bits;
+        }
+        Arrays.fill(value, 0, w, 0);
+        length += (bits == 0) ? w : w + 1;
+        truncate();
+        return this;
+    }
+
+    private void truncate() {
+        while(length > 0 && value[length - 1] == 0)
+            length--;
+    }
+
+    /**
+     * Same growth as MTArrayList, the scratch array keeps its own size
+     */
+    private void ensureCapacity(int minCapacity) {
+        if(minCapacity - value.length > 0) {
+            int oldCap = value.length;
+            int newCap = oldCap + (oldCap >> 1); // grows with the rate of 1.5
+            if(newCap - minCapacity < 0)
+                newCap = minCapacity;
+            value = Arrays.copyOf(value, newCap);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toBigInt().toString();
+    }
+}
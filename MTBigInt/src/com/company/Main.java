@@ -13,6 +13,8 @@ public class Main {
         MTBigInt d = a.multiply(b);
         MTBigInt e = a.subtract(b);
         MTBigInt f = a.divide(b);
+        MTBigInt g = a.mod(b);
+        MTBigInt h = MTBigInt.parse("123456789012345678901234567890");
 
         out.println(a);
         out.println(b);
@@ -20,5 +22,25 @@ public class Main {
         out.println(d);
         out.println(e);
         out.println(f);
+        out.println(g);
+        out.println(h.multiply(h));
+
+        MTMutableBigInt factorial = new MTMutableBigInt(MTBigInt.valueOf(1));
+        for(int i = 2; i <= 30; ++i)
+            factorial.multiplyBySmall(i);
+        out.println(factorial);
+
+        MTBigInt p = MTBigInt.parse("1000000007");
+        out.println(b.modPow(a, p));
+        out.println(b.modInverse(p));
+        out.println(a.gcd(b));
+
+        // 0, 1 and 2 words, too small to be split
+        for(String s : new String[] {"0", "5", "4294967295", "18446744073709551615"}) {
+            MTBigInt v = MTBigInt.parallelParse(s);
+            if(!v.parallelToString().equals(s))
+                throw new AssertionError(s + " != " + v.parallelToString());
+            out.println(v.parallelToString());
+        }
     }
 }
@@ -1,10 +0,0 @@
-package me.mthai;
-
-/**
- * Created by mt on 1/2/2016.
- */
-public class Console {
-    public static void log(Object o) {
-        System.out.printf("[log] %s\n", o.toString());
-    }
-}
@@ -0,0 +1,371 @@
+package me.mthai;
+
+/**
+ * Bounded cache on top of MTHashMap-style buckets.
+ * Every entry is also linked in a doubly linked list in access order
+ * (head.after is the least recently used), so finding the entry to evict
+ * is O(1). The cache is bounded by total weight, which is the number of
+ * entries unless a Weigher is given, and entries can expire some time
+ * after they were written.
+ *
+ * Optionally, a new entry is only admitted if it has been asked for more
+ * often than the entry it would evict (TinyLFU). Frequencies are kept
+ * approximately in a small count-min sketch, which is halved from time to
+ * time so that old popularity fades away.
+ * References:
+ * - TinyLFU: A Highly Efficient Cache Admission Policy (Einziger, Friedman, Manes)
+ */
+public class MTCache<K,V> {
+    static final int INITIAL_CAP = 16;
+    static final int MAX_CAP = 1 << 30;
+    static final int MAX_SKETCH_CAP = 1 << 20; // at most 8MB of counters
+
+    private Entry<K,V> []table;
+    private int size;
+    private long weight;
+
+    private final long maximumWeight;
+    private final Weigher<? super K, ? super V> weigher; // null: every entry weighs 1
+    private final long expireAfterWriteNanos; // 0: never expire
+    private FrequencySketch sketch; // null: admit everything
+
+    // Sentinel of the access order list: header.after is the eldest
+    private final Entry<K,V> header = new Entry<>(0, null, null, 0, 0);
+
+    private long hits, misses, evictions;
+
+    public MTCache(int maximumSize) {
+        this(maximumSize, null, 0, false);
+    }
+
+    /**
+     * @param expireAfterWriteNanos entries are dropped this long after their
+     *                              last put, 0 to keep them until evicted
+     * @param frequencyAdmission use TinyLFU admission instead of plain LRU
+     */
+    public MTCache(long maximumWeight, Weigher<? super K, ? super V> weigher,
+                   long expireAfterWriteNanos, boolean frequencyAdmission) {
+        if(maximumWeight <= 0)
+            throw new IllegalArgumentException("maximumWeight = " + maximumWeight);
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        table = new Entry[INITIAL_CAP];
+        // Sized once for the bound, not for the table, so that the history
+        // survives resizes. A weighted cache holds fewer entries than its
+        // weight, the sketch is then only bigger than needed.
+        if(frequencyAdmission)
+            sketch = new FrequencySketch((int)Math.min(maximumWeight, MAX_SKETCH_CAP));
+        header.before = header.after = header;
+    }
+
+    public V get(K key) {
+        int hash = hash(key);
+        if(sketch != null)
+            sketch.increment(hash);
+
+        Entry<K,V> e = getEntry(key, hash);
+        if(e != null && isExpired(e)) {
+            removeEntry(e);
+            e = null;
+        }
+        if(e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        moveToEnd(e);
+        return e.value;
+    }
+
+    /**
+     * @return the previous value, null if there was none (or it expired)
+     */
+    public V put(K key, V value) {
+        int hash = hash(key);
+        if(sketch != null)
+            sketch.increment(hash);
+
+        int w = weigh(key, value);
+        Entry<K,V> e = getEntry(key, hash);
+        if(e != null) {
+            V old = isExpired(e) ? null : e.value;
+            weight += w - e.weight;
+            e.value = value;
+            e.weight = w;
+            e.writeTime = now();
+            moveToEnd(e);
+            evict();
+            return old;
+        }
+
+        if(w > maximumWeight || !admit(hash, w))
+            return null; // would not stay anyway
+
+        if(size >= table.length)
+            resize(table.length << 1);
+        int i = indexFor(hash, table.length);
+        e = new Entry<>(hash, key, value, w, now());
+        e.next = table[i];
+        table[i] = e;
+        linkLast(e);
+        size++;
+        weight += w;
+        evict();
+        return null;
+    }
+
+    /**
+     * @return the removed value, null if key does not exist
+     */
+    public V remove(K key) {
+        Entry<K,V> e = getEntry(key, hash(key));
+        if(e == null)
+            return null;
+        removeEntry(e);
+        return isExpired(e) ? null : e.value;
+    }
+
+    public void clear() {
+        for(int i = 0; i < table.length; ++i)
+            table[i] = null;
+        header.before = header.after = header;
+        size = 0;
+        weight = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long weight() {
+        return weight;
+    }
+
+    public long hitCount() {
+        return hits;
+    }
+
+    public long missCount() {
+        return misses;
+    }
+
+    public long evictionCount() {
+        return evictions;
+    }
+
+    public double hitRate() {
+        long total = hits + misses;
+        return (total == 0) ? 1.0 : (double)hits / total;
+    }
+
+    /**
+     * With TinyLFU, a new entry that needs room has to be more
+     * popular than the least recently used entry
+     */
+    private boolean admit(int hash, int w) {
+        if(sketch == null || weight + w <= maximumWeight || header.after == header)
+            return true;
+        Entry<K,V> victim = header.after;
+        if(isExpired(victim))
+            return true;
+        return sketch.frequency(hash) > sketch.frequency(victim.hash);
+    }
+
+    /**
+     * Drop least recently used entries until the weight fits
+     */
+    private void evict() {
+        while(weight > maximumWeight && header.after != header) {
+            Entry<K,V> eldest = header.after;
+            removeEntry(eldest);
+            if(!isExpired(eldest))
+                evictions++;
+        }
+    }
+
+    private boolean isExpired(Entry<K,V> e) {
+        return expireAfterWriteNanos > 0 && now() - e.writeTime >= expireAfterWriteNanos;
+    }
+
+    private long now() {
+        return (expireAfterWriteNanos > 0) ? System.nanoTime() : 0;
+    }
+
+    private int weigh(K key, V value) {
+        if(weigher == null)
+            return 1;
+        int w = weigher.weigh(key, value);
+        if(w < 0)
+            throw new IllegalArgumentException("Negative weight " + w + " for " + key);
+        return w;
+    }
+
+    private Entry<K,V> getEntry(K key, int hash) {
+        for(Entry<K,V> e = table[indexFor(hash, table.length)]; e != null; e = e.next) {
+            if(e.hash == hash && (e.key == key || e.key.equals(key)))
+                return e;
+        }
+        return null;
+    }
+
+    private void removeEntry(Entry<K,V> target) {
+        int i = indexFor(target.hash, table.length);
+        if(table[i] == target)
+            table[i] = target.next;
+        else {
+            for(Entry<K,V> e = table[i]; e != null; e = e.next) {
+                if(e.next == target) {
+                    e.next = target.next;
+                    break;
+                }
+            }
+        }
+        unlink(target);
+        size--;
+        weight -= target.weight;
+    }
+
+    private void linkLast(Entry<K,V> e) {
+        e.before = header.before;
+        e.after = header;
+        header.before.after = e;
+        header.before = e;
+    }
+
+    private void unlink(Entry<K,V> e) {
+        e.before.after = e.after;
+        e.after.before = e.before;
+    }
+
+    private void moveToEnd(Entry<K,V> e) {
+        if(header.before == e)
+            return;
+        unlink(e);
+        linkLast(e);
+    }
+
+    private void resize(int toSize) {
+        if(table.length >= MAX_CAP)
+            return;
+        Entry<K,V> []newTable = new Entry[toSize];
+        for(Entry<K,V> first : table) {
+            for(Entry<K,V> e = first; e != null;) {
+                Entry<K,V> next = e.next;
+                int i = indexFor(e.hash, toSize);
+                e.next = newTable[i];
+                newTable[i] = e;
+                e = next;
+            }
+        }
+        table = newTable;
+    }
+
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int indexFor(int hash, int size) {
+        return hash & (size - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for(Entry<K,V> e = header.after; e != header; e = e.after)
+            sb.append(e).append((e.after == header) ? "" : ", ");
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Weight of an entry, e.g. its size in bytes
+     */
+    public interface Weigher<A,B> {
+        int weigh(A key, B value);
+    }
+
+    static class Entry<A,B> {
+        final int hash;
+        final A key;
+        B value;
+        int weight;
+        long writeTime;
+        Entry<A,B> next; // same bucket
+        Entry<A,B> before, after; // access order
+
+        public Entry(int hash, A key, B value, int weight, long writeTime) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+
+        @Override
+        public String toString() {
+            return "{" +
+                    "key=" + key +
+                    ", value=" + value +
+                    '}';
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, 16 per long. Each of the 4 rows
+     * picks a word and a counter in it, the estimate is the smallest of
+     * the 4. After 10 increments per word all counters are halved.
+     */
+    static class FrequencySketch {
+        static final long []SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        static final long HALF_MASK = 0x7777777777777777L;
+
+        private final long []table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int n = Math.max(Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1, 8);
+            table = new long[n];
+            sampleSize = 10 * n;
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for(int row = 0; row < 4; ++row)
+                min = Math.min(min, (int)(table[indexOf(hash, row)] >>> shiftOf(hash, row)) & 15);
+            return min;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for(int row = 0; row < 4; ++row) {
+                int i = indexOf(hash, row), shift = shiftOf(hash, row);
+                if(((table[i] >>> shift) & 15) < 15) {
+                    table[i] += 1L << shift;
+                    added = true;
+                }
+            }
+            if(added && ++additions >= sampleSize)
+                halve();
+        }
+
+        private void halve() {
+            for(int i = 0; i < table.length; ++i)
+                table[i] = (table[i] >>> 1) & HALF_MASK;
+            additions >>>= 1;
+        }
+
+        private int indexOf(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += h >>> 32;
+            return (int)h & (table.length - 1);
+        }
+
+        private int shiftOf(int hash, int row) {
+            return ((hash >>> (row << 3)) & 15) << 2;
+        }
+    }
+}
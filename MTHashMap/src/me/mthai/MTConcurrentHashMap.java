@@ -0,0 +1,358 @@
+package me.mthai;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe version of MTHashMap, same buckets of chained entries.
+ * - get never locks: the table is an AtomicReferenceArray and entry fields
+ *   that can change (value, next) are volatile.
+ * - put into an empty bucket is a single CAS, otherwise it locks only the
+ *   first entry of that bucket.
+ * - resize is cooperative: the table is split into slices and every thread
+ *   that runs into a moved bucket helps transfer a slice before retrying
+ *   on the new table. A moved bucket holds a Forwarding entry.
+ * References:
+ * - java.util.concurrent.ConcurrentHashMap (JDK 8)
+ */
+public class MTConcurrentHashMap<K,V> {
+    static final int INITIAL_CAP = 16;
+    static final int MAX_CAP = 1 << 30;
+    static final int MIN_TRANSFER_STRIDE = 16;
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    static final int MOVED = -1; // hash of Forwarding entries
+    static final int HASH_BITS = 0x7fffffff; // so that real hashes are never negative
+
+    private volatile AtomicReferenceArray<Entry<K,V>> table;
+    private volatile AtomicReferenceArray<Entry<K,V>> nextTable; // not null only while resizing
+    private final AtomicInteger transferIndex = new AtomicInteger(); // slices below this are not claimed yet
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * > 0: size at which the next resize starts
+     * -1: the last resizer is finishing, nobody can join
+     * < -1: resizing, -(1 + number of threads transferring)
+     */
+    private final AtomicInteger sizeCtl = new AtomicInteger();
+
+    public MTConcurrentHashMap() {
+        this(INITIAL_CAP);
+    }
+
+    public MTConcurrentHashMap(int initialCapacity) {
+        int n = roundToPower2(initialCapacity);
+        table = new AtomicReferenceArray<>(n);
+        sizeCtl.set(thresholdFor(n));
+    }
+
+    private int roundToPower2(int x) {
+        if(x >= MAX_CAP) return MAX_CAP;
+        if(x <= INITIAL_CAP) return INITIAL_CAP;
+        return (Integer.bitCount(x) == 1) ? x : Integer.highestOneBit(x) << 1;
+    }
+
+    private static int thresholdFor(int n) {
+        return (n >= MAX_CAP) ? Integer.MAX_VALUE : n - (n >>> 2); // load factor 0.75
+    }
+
+    public int size() {
+        long n = count.sum();
+        return (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)Math.max(n, 0);
+    }
+
+    public boolean isEmpty() {
+        return count.sum() <= 0;
+    }
+
+    public V get(K key) {
+        Entry<K,V> e = getEntry(key);
+        return (e != null) ? e.value : null;
+    }
+
+    public boolean containsKey(K key) {
+        return getEntry(key) != null;
+    }
+
+    private Entry<K,V> getEntry(K key) {
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<Entry<K,V>> tab = table;
+        for(;;) {
+            Entry<K,V> e = tab.get(indexFor(hash, tab.length()));
+            if(e == null)
+                return null;
+            if(e.hash == MOVED) { // look it up in the new table instead
+                tab = ((Forwarding<K,V>)e).nextTable;
+                continue;
+            }
+            for(; e != null; e = e.next) {
+                if(e.hash == hash && e.key.equals(key))
+                    return e;
+            }
+            return null;
+        }
+    }
+
+    public V put(K key, V value) {
+        if(key == null || value == null)
+            throw new NullPointerException();
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<Entry<K,V>> tab = table;
+        for(;;) {
+            int i = indexFor(hash, tab.length());
+            Entry<K,V> f = tab.get(i);
+            if(f == null) {
+                if(tab.compareAndSet(i, null, new Entry<>(hash, key, value)))
+                    break; // no lock when adding to an empty bucket
+            }
+            else if(f.hash == MOVED) {
+                tab = helpTransfer(tab, (Forwarding<K,V>)f);
+            }
+            else {
+                synchronized(f) {
+                    if(tab.get(i) != f)
+                        continue; // bucket changed before we got the lock
+                    for(Entry<K,V> e = f; ; e = e.next) {
+                        if(e.hash == hash && e.key.equals(key)) {
+                            V old = e.value;
+                            e.value = value;
+                            return old;
+                        }
+                        if(e.next == null) {
+                            e.next = new Entry<>(hash, key, value);
+                            break;
+                        }
+                    }
+                }
+                break;
+            }
+        }
+
+        addCount(1);
+        return null;
+    }
+
+    /**
+     * @return the removed value, null if key does not exist
+     */
+    public V remove(K key) {
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<Entry<K,V>> tab = table;
+        for(;;) {
+            int i = indexFor(hash, tab.length());
+            Entry<K,V> f = tab.get(i);
+            if(f == null)
+                return null;
+            if(f.hash == MOVED) {
+                tab = helpTransfer(tab, (Forwarding<K,V>)f);
+                continue;
+            }
+            V old = null;
+            synchronized(f) {
+                if(tab.get(i) != f)
+                    continue;
+                for(Entry<K,V> e = f, prev = null; e != null; prev = e, e = e.next) {
+                    if(e.hash == hash && e.key.equals(key)) {
+                        old = e.value;
+                        if(prev == null)
+                            tab.set(i, e.next);
+                        else
+                            prev.next = e.next;
+                        break;
+                    }
+                }
+            }
+            if(old != null)
+                addCount(-1);
+            return old;
+        }
+    }
+
+    private void addCount(int delta) {
+        count.add(delta);
+        if(delta < 0)
+            return;
+        long s = count.sum();
+        int sc = sizeCtl.get();
+        if(sc > 0 && s >= sc && table.length() < MAX_CAP
+                && sizeCtl.compareAndSet(sc, -2)) {
+            transfer(table, null);
+            leaveResize();
+        }
+    }
+
+    /**
+     * Join the running resize, if it is still looking for helpers.
+     * @return the table to retry on
+     */
+    private AtomicReferenceArray<Entry<K,V>> helpTransfer(AtomicReferenceArray<Entry<K,V>> tab, Forwarding<K,V> f) {
+        AtomicReferenceArray<Entry<K,V>> nextTab = f.nextTable;
+        while(nextTable == nextTab && table == tab && transferIndex.get() > 0) {
+            int sc = sizeCtl.get();
+            if(sc >= -1)
+                break;
+            if(sizeCtl.compareAndSet(sc, sc - 1)) {
+                // While we are counted in sizeCtl this resize cannot finish,
+                // so if it is still the same one now, it stays the same one
+                if(nextTable == nextTab && table == tab)
+                    transfer(tab, nextTab);
+                leaveResize();
+                break;
+            }
+        }
+        return nextTab;
+    }
+
+    /**
+     * Move buckets of tab to nextTab, one slice at a time until
+     * there is no slice left to claim.
+     */
+    private void transfer(AtomicReferenceArray<Entry<K,V>> tab, AtomicReferenceArray<Entry<K,V>> nextTab) {
+        int n = tab.length();
+        if(nextTab == null) { // we started this resize
+            nextTab = new AtomicReferenceArray<>(n << 1);
+            transferIndex.set(n);
+            nextTable = nextTab;
+        }
+        int stride = Math.max((n >>> 3) / NCPU, MIN_TRANSFER_STRIDE);
+        Forwarding<K,V> fwd = new Forwarding<>(nextTab);
+
+        for(;;) {
+            int hi = transferIndex.get();
+            if(hi <= 0)
+                return;
+            int lo = Math.max(hi - stride, 0);
+            if(!transferIndex.compareAndSet(hi, lo))
+                continue;
+            for(int i = hi - 1; i >= lo; --i)
+                moveBucket(tab, nextTab, i, fwd);
+        }
+    }
+
+    /**
+     * Stop helping. The last thread out double checks that every bucket
+     * has been moved then switches to the new table.
+     */
+    private void leaveResize() {
+        for(;;) {
+            int sc = sizeCtl.get();
+            if(sizeCtl.compareAndSet(sc, sc + 1)) {
+                if(sc + 1 != -1)
+                    return;
+                break;
+            }
+        }
+
+        AtomicReferenceArray<Entry<K,V>> tab = table, nextTab = nextTable;
+        Forwarding<K,V> fwd = new Forwarding<>(nextTab);
+        for(int i = 0; i < tab.length(); ++i)
+            moveBucket(tab, nextTab, i, fwd);
+
+        table = nextTab;
+        nextTable = null;
+        sizeCtl.set(thresholdFor(nextTab.length()));
+    }
+
+    /**
+     * Copy the entries of bucket i into bucket i and i + n of nextTab, then
+     * leave a Forwarding entry behind. Entries are copied rather than moved
+     * so that readers still walking the old chain are not disturbed.
+     */
+    private void moveBucket(AtomicReferenceArray<Entry<K,V>> tab,
+                            AtomicReferenceArray<Entry<K,V>> nextTab,
+                            int i, Forwarding<K,V> fwd) {
+        int n = tab.length();
+        for(;;) {
+            Entry<K,V> f = tab.get(i);
+            if(f == null) {
+                if(tab.compareAndSet(i, null, fwd))
+                    return;
+                continue;
+            }
+            if(f.hash == MOVED)
+                return;
+            synchronized(f) {
+                if(tab.get(i) != f)
+                    continue;
+                Entry<K,V> low = null, high = null;
+                for(Entry<K,V> e = f; e != null; e = e.next) {
+                    // Because n is a power of 2, an entry either stays at i or goes to i + n
+                    if((e.hash & n) == 0)
+                        low = new Entry<>(e.hash, e.key, e.value, low);
+                    else
+                        high = new Entry<>(e.hash, e.key, e.value, high);
+                }
+                nextTab.set(i, low);
+                nextTab.set(i + n, high);
+                tab.set(i, fwd);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Mix high bits into the low bits used by indexFor
+     */
+    static int spread(int h) {
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    private int indexFor(int hash, int size) {
+        return hash & (size - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        AtomicReferenceArray<Entry<K,V>> tab = table;
+        for(int i = 0; i < tab.length(); ++i) {
+            Entry<K,V> first = tab.get(i);
+            if(first == null || first.hash == MOVED) continue;
+            sb.append(String.format("bucket %d: ", i));
+            for(Entry<K,V> e = first; e != null; e = e.next) {
+                sb.append(e).append((null == e.next) ? "" : ", ");
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    static class Entry<A,B> {
+        final int hash;
+        final A key;
+        volatile B value;
+        volatile Entry<A,B> next;
+
+        public Entry(int hash, A key, B value) {
+            this(hash, key, value, null);
+        }
+
+        public Entry(int hash, A key, B value, Entry<A,B> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public String toString() {
+            return "{" +
+                    "key=" + key +
+                    ", value=" + value +
+                    '}';
+        }
+    }
+
+    /**
+     * Placed in a bucket of the old table once it has been transferred
+     */
+    static class Forwarding<A,B> extends Entry<A,B> {
+        final AtomicReferenceArray<Entry<A,B>> nextTable;
+
+        public Forwarding(AtomicReferenceArray<Entry<A,B>> nextTable) {
+            super(MOVED, null, null);
+            this.nextTable = nextTable;
+        }
+    }
+}
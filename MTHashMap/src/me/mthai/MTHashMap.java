@@ -1,29 +1,66 @@
 package me.mthai;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.Map;
 
 /**
  * Created by mt on 1/2/2016.
  */
 public class MTHashMap<K,V> {
-    final int INITIAL_CAP = 8;
-    final int MAX_CAP = 1 << 30;
+    static final int INITIAL_CAP = 8;
+    static final int MAX_CAP = 1 << 30;
 
-    public int size = INITIAL_CAP;
+    /**
+     * A bucket with this many entries becomes a balanced tree (TreeBin),
+     * so that many keys with the same index, by accident or on purpose,
+     * cost O(log n) instead of O(n). A tree with at most UNTREEIFY_THRESHOLD
+     * entries left after a resize goes back to a plain chain.
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+    static final int UNTREEIFY_THRESHOLD = 6;
+    // Smaller tables never treeify: the table doubles anyway once size
+    // reaches its length, which splits the long chains
+    static final int MIN_TREEIFY_CAP = 64;
+
+    public int size;
 
     private Entry<K,V> []table;
 
+    /**
+     * Incremental resize (like Redis): instead of rehashing everything at
+     * once, the new table is used right away and every following operation
+     * moves the next migrateStep buckets of oldTable into it. Until oldTable
+     * is empty, lookups check both tables.
+     */
+    private Entry<K,V> []oldTable;
+    private int migrateIndex; // next bucket of oldTable to move
+    private final int migrateStep; // 0: resize all at once
+
+    private Metrics metrics; // null: not measured, costs one null check
+    private int lookupProbes; // of the current getEntry, -1 once it reached a tree bucket
+
     public MTHashMap() {
-        initTable(INITIAL_CAP);
+        this(INITIAL_CAP, 0);
     }
 
     public MTHashMap(int initialCapacity) {
+        this(initialCapacity, 0);
+    }
+
+    /**
+     * @param migrateStep if > 0, resize incrementally, moving at most this
+     *                    many buckets per get/put
+     */
+    public MTHashMap(int initialCapacity, int migrateStep) {
+        this.migrateStep = migrateStep;
         initTable(initialCapacity);
     }
 
     private void initTable(int toSize) {
         int n = roundToPower2(toSize);
-        table = new Entry[INITIAL_CAP];
+        table = new Entry[n];
     }
 
     private int roundToPower2(int x) {
@@ -36,40 +73,107 @@ public class MTHashMap<K,V> {
     }
 
     public V get(K key) {
-        Entry<K,V> e = getEntry(key);
+        migrate();
+        Entry<K,V> e = getEntry(key, hash(key));
         return (e != null) ? e.value : null;
     }
 
-    private Entry<K,V> getEntry(K key) {
-        int hash = key.hashCode();
-        int i = indexFor(hash, table.length);
-        for(Entry<K,V> e = table[i]; e != null; e = e.next) {
-            if(e.key.hashCode() == hash && e.key.equals(key))
-                return e;
+    private Entry<K,V> getEntry(K key, int hash) {
+        lookupProbes = 0;
+        Entry<K,V> e = findEntry(table, key, hash);
+        if(e == null && oldTable != null)
+            e = findEntry(oldTable, key, hash);
+        if(metrics != null && lookupProbes >= 0) // one lookup, even if it searched both tables
+            metrics.probed(lookupProbes);
+        return e;
+    }
+
+    /**
+     * Adds the number of entries looked at to lookupProbes, or sets it to
+     * -1 if the bucket is a tree
+     */
+    private Entry<K,V> findEntry(Entry<K,V> []tab, K key, int hash) {
+        int i = indexFor(hash, tab.length);
+        if(tab[i] instanceof TreeBin) {
+            lookupProbes = -1;
+            return ((TreeBin<K,V>)tab[i]).find(hash, key);
         }
-        return null;
+        int probes = 0;
+        Entry<K,V> e = tab[i];
+        for(; e != null; e = e.next) {
+            probes++;
+            // Cheap int compare first, equals() only on a real candidate
+            if(e.hash == hash && (e.key == key || e.key.equals(key)))
+                break;
+        }
+        if(lookupProbes >= 0)
+            lookupProbes += probes;
+        return e;
     }
 
     public V put(K key, V value) {
-        int hash = key.hashCode();
-        int i = indexFor(hash, table.length);
-        // Find duplicate
-        for(Entry<K,V> e = table[i]; e != null; e = e.next) {
-            if(e.key.hashCode() == hash && e.key.equals(key)) {
-                V old = e.value;
-                e.value = value;
+        return put(key, value, hash(key));
+    }
 
-                Console.log("Duplicate key = " + key);
-                return old;
-            }
+    private V put(K key, V value, int hash) {
+        migrate();
+        // Find duplicate
+        Entry<K,V> e = getEntry(key, hash);
+        if(e != null) {
+            V old = e.value;
+            e.value = value;
+            return old;
         }
 
-        addEntry(key, value, hash, i);
+        addEntry(key, value, hash, indexFor(hash, table.length));
         return null;
     }
 
+    /**
+     * Copy all mappings of other, the table is resized at most once
+     * and the hashes already stored in other are reused.
+     */
+    public void putAll(MTHashMap<? extends K, ? extends V> other) {
+        ensureCapacity(size + other.size);
+        putAll(other.table);
+        if(other.oldTable != null)
+            putAll(other.oldTable);
+    }
+
+    private void putAll(Entry<? extends K, ? extends V> []tab) {
+        for(Entry<? extends K, ? extends V> first : tab) {
+            if(first instanceof TreeBin)
+                first = ((TreeBin<? extends K, ? extends V>)first).first;
+            for(Entry<? extends K, ? extends V> e = first; e != null; e = e.next)
+                put(e.key, e.value, e.hash);
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> other) {
+        ensureCapacity(size + other.size());
+        for(Map.Entry<? extends K, ? extends V> e : other.entrySet())
+            put(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Grow the table (in one go) so that it can hold expected entries
+     */
+    private void ensureCapacity(int expected) {
+        if(expected <= table.length || table.length >= MAX_CAP)
+            return;
+        while(oldTable != null) // finish the incremental resize first
+            migrate();
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        Entry<K,V> []newTable = new Entry[roundToPower2(expected)];
+        transfer(newTable);
+        table = newTable;
+        if(metrics != null)
+            metrics.resized(System.nanoTime() - start);
+    }
+
     private void addEntry(K key, V value, int hash, int id) {
-        if(size >= table.length) {
+        // While migrating, the table has just doubled so there is room
+        if(size >= table.length && oldTable == null) {
             resize(table.length << 1);
             id = indexFor(hash, table.length);
         }
@@ -77,34 +181,130 @@ public class MTHashMap<K,V> {
     }
 
     private void createEntry(K key, V value, int hash, int id) {
-        Entry<K, V> newEntry = new Entry<>(key, value);
-        newEntry.next = table[id];
-        table[id] = newEntry;
+        Entry<K, V> newEntry = new Entry<>(hash, key, value);
+        addToBucket(table, id, newEntry);
         size++;
     }
 
+    private void addToBucket(Entry<K,V> []tab, int id, Entry<K,V> e) {
+        if(tab[id] instanceof TreeBin) {
+            ((TreeBin<K,V>)tab[id]).add(e.hash, e.key, e.value);
+            return;
+        }
+        e.next = tab[id];
+        tab[id] = e;
+        if(metrics == null && tab.length < MIN_TREEIFY_CAP)
+            return;
+        int length = chainLength(e);
+        if(metrics != null)
+            metrics.chained(length);
+        if(tab.length >= MIN_TREEIFY_CAP && length >= TREEIFY_THRESHOLD)
+            tab[id] = treeify(e);
+    }
+
+    private int chainLength(Entry<K,V> e) {
+        int n = 0;
+        for(; e != null; e = e.next)
+            n++;
+        return n;
+    }
+
+    private TreeBin<K,V> treeify(Entry<K,V> chain) {
+        TreeBin<K,V> bin = new TreeBin<>();
+        for(Entry<K,V> e = chain; e != null; e = e.next)
+            bin.add(e.hash, e.key, e.value);
+        return bin;
+    }
+
+    private Entry<K,V> untreeify(TreeBin<K,V> bin) {
+        Entry<K,V> chain = null;
+        for(Entry<K,V> e = bin.first; e != null; e = e.next) {
+            Entry<K,V> copy = new Entry<>(e.hash, e.key, e.value);
+            copy.next = chain;
+            chain = copy;
+        }
+        return chain;
+    }
+
     private void resize(int toSize) {
         int old = table.length;
         if(old >= MAX_CAP)
             return;
 
+        long start = (metrics != null) ? System.nanoTime() : 0;
         Entry<K,V> []newTable = new Entry[toSize];
-        transfer(newTable);
+        if(migrateStep > 0) {
+            oldTable = table;
+            migrateIndex = 0;
+        }
+        else
+            transfer(newTable);
         table = newTable;
+        if(metrics != null)
+            metrics.resized(System.nanoTime() - start);
     }
 
-    private void transfer(Entry []newTable) {
-        int n = newTable.length;
-        for(Entry e : table) {
-            while(e != null) {
-                int i = indexFor(e.key.hashCode(), n);
-                e.next = newTable[i];
-                newTable[i] = e;
-                e = e.next;
-            }
+    private void transfer(Entry<K,V> []newTable) {
+        for(int i = 0; i < table.length; ++i)
+            moveBucket(table, i, newTable);
+    }
+
+    /**
+     * Move the next few buckets of oldTable, if a resize is in progress
+     */
+    private void migrate() {
+        if(oldTable == null)
+            return;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        int end = Math.min(migrateIndex + migrateStep, oldTable.length);
+        for(; migrateIndex < end; ++migrateIndex)
+            moveBucket(oldTable, migrateIndex, table);
+        if(migrateIndex == oldTable.length)
+            oldTable = null;
+        if(metrics != null)
+            metrics.resizeNanos += System.nanoTime() - start; // still the same resize
+    }
+
+    /**
+     * Start recording into m, which can be shared by several maps.
+     * null stops recording.
+     */
+    public void setMetrics(Metrics m) {
+        metrics = m;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    private void moveBucket(Entry<K,V> []from, int id, Entry<K,V> []to) {
+        Entry<K,V> first = from[id];
+        if(first instanceof TreeBin)
+            first = ((TreeBin<K,V>)first).first;
+        for(Entry<K,V> e = first; e != null;) {
+            Entry<K,V> next = e.next;
+            addToBucket(to, indexFor(e.hash, to.length), e); // no hashCode() call
+            e = next;
+        }
+        from[id] = null;
+
+        // A tree split in 2 may now be small enough to be a chain again
+        for(int i = id; i < to.length; i += from.length) {
+            if(to[i] instanceof TreeBin && ((TreeBin<K,V>)to[i]).count <= UNTREEIFY_THRESHOLD)
+                to[i] = untreeify((TreeBin<K,V>)to[i]);
         }
     }
 
+    /**
+     * Spread the high bits of hashCode() into the low bits used by indexFor,
+     * otherwise keys that only differ in high bits (e.g. multiples of 8)
+     * always collide.
+     */
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
     private int indexFor(int hash, int size) {
         /**
          * Because size is always a power of 2, size - 1 in binary
@@ -118,23 +318,116 @@ public class MTHashMap<K,V> {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for(int i = 0; i < size; ++i) {
-            if(table[i] == null) continue;
+        toString(table, sb);
+        if(oldTable != null)
+            toString(oldTable, sb);
+        return sb.toString();
+    }
+
+    private void toString(Entry<K,V> []tab, StringBuilder sb) {
+        for(int i = 0; i < tab.length; ++i) {
+            if(tab[i] == null) continue;
             sb.append(String.format("bucket %d: ", i));
-            for(Entry<K,V> e = table[i]; e != null; e = e.next) {
+            Entry<K,V> first = tab[i];
+            if(first instanceof TreeBin)
+                first = ((TreeBin<K,V>)first).first;
+            for(Entry<K,V> e = first; e != null; e = e.next) {
                 sb.append(e).append((null == e.next) ? "" : ", ");
             }
             sb.append('\n');
         }
-        return sb.toString();
+    }
+
+    public interface MetricsMXBean {
+        long getResizes();
+        long getResizeNanos();
+        long getLookups();
+        double getAverageProbeLength();
+        int getMaxChainLength();
+    }
+
+    /**
+     * Counters updated by the maps it is set on, as cheap as possible:
+     * plain fields, no lock, so a reader on another thread (e.g. JMX) may
+     * see slightly old values. Probe length is the number of entries looked
+     * at in a chained bucket. Lookups that reach a tree bucket are not
+     * counted at all, neither as a lookup nor as probes.
+     */
+    public static class Metrics implements MetricsMXBean {
+        long resizes, resizeNanos;
+        long lookups, probes;
+        int maxChainLength;
+
+        void resized(long nanos) {
+            resizes++;
+            resizeNanos += nanos;
+        }
+
+        void probed(int n) {
+            lookups++;
+            probes += n;
+        }
+
+        void chained(int length) {
+            if(length > maxChainLength)
+                maxChainLength = length;
+        }
+
+        @Override
+        public long getResizes() {
+            return resizes;
+        }
+
+        @Override
+        public long getResizeNanos() {
+            return resizeNanos;
+        }
+
+        @Override
+        public long getLookups() {
+            return lookups;
+        }
+
+        @Override
+        public double getAverageProbeLength() {
+            return (lookups == 0) ? 0 : (double)probes / lookups;
+        }
+
+        @Override
+        public int getMaxChainLength() {
+            return maxChainLength;
+        }
+
+        /**
+         * Publish these counters as me.mthai:type=MTHashMap,name=...
+         * on the platform MBean server
+         */
+        public ObjectName register(String name) {
+            try {
+                ObjectName on = new ObjectName("me.mthai:type=MTHashMap,name=" + ObjectName.quote(name));
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+                return on;
+            }
+            catch(JMException e) {
+                throw new IllegalArgumentException("Cannot register " + name, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{resizes=%d, resizeNanos=%d, lookups=%d, averageProbeLength=%.2f, maxChainLength=%d}",
+                    resizes, resizeNanos, lookups, getAverageProbeLength(), maxChainLength);
+        }
     }
 
     static class Entry<A,B> {
+        final int hash; // hash(key), computed once
         A key;
         B value;
         Entry<A,B> next;
 
-        public Entry(A key, B value) {
+        public Entry(int hash, A key, B value) {
+            this.hash = hash;
             this.key = key;
             this.value = value;
         }
@@ -166,4 +459,128 @@ public class MTHashMap<K,V> {
                     '}';
         }
     }
-}
\ No newline at end of file
+
+    static class TreeEntry<A,B> extends Entry<A,B> {
+        TreeEntry<A,B> left, right;
+        int height = 1;
+
+        public TreeEntry(int hash, A key, B value) {
+            super(hash, key, value);
+        }
+    }
+
+    /**
+     * A bucket stored as an AVL tree ordered by hash, then by compareTo()
+     * when the keys are Comparable and of the same class. Entries are also
+     * linked through next (starting at first) so the bucket can be iterated
+     * like a chain.
+     */
+    static class TreeBin<A,B> extends Entry<A,B> {
+        TreeEntry<A,B> root;
+        Entry<A,B> first;
+        int count;
+
+        public TreeBin() {
+            super(0, null, null);
+        }
+
+        void add(int hash, A key, B value) {
+            TreeEntry<A,B> e = new TreeEntry<>(hash, key, value);
+            e.next = first;
+            first = e;
+            count++;
+            root = insert(root, e);
+        }
+
+        TreeEntry<A,B> find(int hash, Object key) {
+            return find(root, hash, key);
+        }
+
+        private TreeEntry<A,B> find(TreeEntry<A,B> cur, int hash, Object key) {
+            while(cur != null) {
+                if(hash != cur.hash) {
+                    cur = (hash < cur.hash) ? cur.left : cur.right;
+                    continue;
+                }
+                if(cur.key == key || cur.key.equals(key))
+                    return cur;
+                int compare = compareComparables(key, cur.key);
+                if(compare != 0) {
+                    cur = (compare < 0) ? cur.left : cur.right;
+                    continue;
+                }
+                // Can't tell which side it was put on, look at both
+                TreeEntry<A,B> found = find(cur.right, hash, key);
+                if(found != null)
+                    return found;
+                cur = cur.left;
+            }
+            return null;
+        }
+
+        private TreeEntry<A,B> insert(TreeEntry<A,B> cur, TreeEntry<A,B> e) {
+            if(cur == null)
+                return e;
+            int compare = Integer.compare(e.hash, cur.hash);
+            if(compare == 0)
+                compare = compareComparables(e.key, cur.key);
+            if(compare == 0) // any consistent order will do
+                compare = (System.identityHashCode(e.key) <= System.identityHashCode(cur.key)) ? -1 : 1;
+
+            if(compare < 0)
+                cur.left = insert(cur.left, e);
+            else
+                cur.right = insert(cur.right, e);
+            return balance(cur);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static int compareComparables(Object a, Object b) {
+            if(a instanceof Comparable && a.getClass() == b.getClass())
+                return ((Comparable<Object>)a).compareTo(b);
+            return 0;
+        }
+
+        private static int height(TreeEntry<?,?> e) {
+            return (e == null) ? 0 : e.height;
+        }
+
+        private static <A,B> void updateHeight(TreeEntry<A,B> e) {
+            e.height = Math.max(height(e.left), height(e.right)) + 1;
+        }
+
+        private static <A,B> TreeEntry<A,B> balance(TreeEntry<A,B> x) {
+            updateHeight(x);
+            int factor = height(x.left) - height(x.right);
+            if(factor > 1) { // left heavy
+                if(height(x.left.left) < height(x.left.right))
+                    x.left = rotateLeft(x.left); // left-right case
+                return rotateRight(x);
+            }
+            if(factor < -1) { // right heavy
+                if(height(x.right.right) < height(x.right.left))
+                    x.right = rotateRight(x.right); // right-left case
+                return rotateLeft(x);
+            }
+            return x;
+        }
+
+        private static <A,B> TreeEntry<A,B> rotateRight(TreeEntry<A,B> x) {
+            TreeEntry<A,B> y = x.left;
+            x.left = y.right;
+            y.right = x;
+            updateHeight(x);
+            updateHeight(y);
+            return y;
+        }
+
+        private static <A,B> TreeEntry<A,B> rotateLeft(TreeEntry<A,B> x) {
+            TreeEntry<A,B> y = x.right;
+            x.right = y.left;
+            y.left = x;
+            updateHeight(x);
+            updateHeight(y);
+            return y;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package me.mthai;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from int to int.
+ * Keys and values live in 2 parallel int arrays, a collision goes to the
+ * next slot (linear probing) so there is no Entry object, no boxing and
+ * no pointer chasing: get/put never allocate once the table is big enough.
+ *
+ * Key 0 marks a free slot, so the mapping for key 0 (if any) is
+ * kept aside in hasZeroKey/zeroValue.
+ */
+public class MTIntIntHashMap {
+    static final int INITIAL_CAP = 8;
+    static final int MAX_CAP = 1 << 30;
+    static final int FREE_KEY = 0;
+
+    private int []keys;
+    private int []values;
+    private int size; // not counting key 0
+    private int threshold; // resize when size reaches this, 3/4 of capacity
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    private final int noValue; // returned by get() when the key is missing
+
+    public MTIntIntHashMap() {
+        this(INITIAL_CAP, 0);
+    }
+
+    public MTIntIntHashMap(int initialCapacity) {
+        this(initialCapacity, 0);
+    }
+
+    /**
+     * @param noValue value returned by get/put/remove for a missing key
+     */
+    public MTIntIntHashMap(int initialCapacity, int noValue) {
+        this.noValue = noValue;
+        // Enough slots to hold initialCapacity keys without resizing
+        initTable(roundToPower2(initialCapacity + (initialCapacity >> 1) + 1));
+    }
+
+    private void initTable(int cap) {
+        keys = new int[cap];
+        values = new int[cap];
+        threshold = (cap >> 1) + (cap >> 2);
+    }
+
+    private int roundToPower2(int x) {
+        if(x >= MAX_CAP) return MAX_CAP;
+        if(x <= INITIAL_CAP) return INITIAL_CAP;
+        return (Integer.bitCount(x) == 1) ? x : Integer.highestOneBit(x) << 1;
+    }
+
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int get(int key) {
+        if(key == FREE_KEY)
+            return hasZeroKey ? zeroValue : noValue;
+        int i = indexOf(key);
+        return (i >= 0) ? values[i] : noValue;
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if(key == FREE_KEY)
+            return hasZeroKey ? zeroValue : defaultValue;
+        int i = indexOf(key);
+        return (i >= 0) ? values[i] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        return (key == FREE_KEY) ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the previous value of key, or noValue if there was none
+     */
+    public int put(int key, int value) {
+        if(key == FREE_KEY) {
+            int old = hasZeroKey ? zeroValue : noValue;
+            hasZeroKey = true;
+            zeroValue = value;
+            return old;
+        }
+
+        int mask = keys.length - 1;
+        for(int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if(keys[i] == FREE_KEY) {
+                keys[i] = key;
+                values[i] = value;
+                if(++size >= threshold)
+                    resize(keys.length << 1);
+                return noValue;
+            }
+            if(keys[i] == key) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+    }
+
+    /**
+     * @return the removed value, or noValue if key does not exist
+     */
+    public int remove(int key) {
+        if(key == FREE_KEY) {
+            if(!hasZeroKey)
+                return noValue;
+            hasZeroKey = false;
+            return zeroValue;
+        }
+
+        int i = indexOf(key);
+        if(i < 0)
+            return noValue;
+        int old = values[i];
+        shiftBack(i);
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        for(int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if(keys[i] == key)
+                return i;
+            if(keys[i] == FREE_KEY)
+                return -1;
+        }
+    }
+
+    /**
+     * Backward shift deletion: instead of leaving a tombstone, move later
+     * keys of the same probe run back into the hole so lookups can still
+     * stop at the first free slot.
+     */
+    private void shiftBack(int hole) {
+        int mask = keys.length - 1;
+        for(int i = (hole + 1) & mask; keys[i] != FREE_KEY; i = (i + 1) & mask) {
+            int home = mix(keys[i]) & mask;
+            // Move it back if its home slot is not in (hole, i]
+            if(((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = FREE_KEY;
+    }
+
+    private void resize(int toSize) {
+        if(keys.length >= MAX_CAP)
+            return;
+        int []oldKeys = keys, oldValues = values;
+        initTable(toSize);
+
+        int mask = toSize - 1;
+        for(int j = 0; j < oldKeys.length; ++j) {
+            int key = oldKeys[j];
+            if(key == FREE_KEY) continue;
+            int i = mix(key) & mask;
+            while(keys[i] != FREE_KEY)
+                i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+
+    /**
+     * Linear probing needs neighbour keys to land far apart, so scramble
+     * the bits (Fibonacci hashing) before taking the low bits as index.
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        if(hasZeroKey)
+            sb.append(FREE_KEY).append('=').append(zeroValue).append(", ");
+        for(int i = 0; i < keys.length; ++i) {
+            if(keys[i] == FREE_KEY) continue;
+            sb.append(keys[i]).append('=').append(values[i]).append(", ");
+        }
+        if(sb.length() > 1)
+            sb.setLength(sb.length() - 2);
+        return sb.append('}').toString();
+    }
+}
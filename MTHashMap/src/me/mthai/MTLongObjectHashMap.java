@@ -0,0 +1,185 @@
+package me.mthai;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long to V, see MTIntIntHashMap.
+ * Keys are kept in a long[] and values in a parallel Object[],
+ * so a lookup only touches the 2 arrays and never boxes the key.
+ */
+public class MTLongObjectHashMap<V> {
+    static final int INITIAL_CAP = 8;
+    static final int MAX_CAP = 1 << 30;
+    static final long FREE_KEY = 0;
+
+    private long []keys;
+    private Object []values;
+    private int size; // not counting key 0
+    private int threshold; // 3/4 of capacity
+
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    public MTLongObjectHashMap() {
+        this(INITIAL_CAP);
+    }
+
+    public MTLongObjectHashMap(int initialCapacity) {
+        initTable(roundToPower2(initialCapacity + (initialCapacity >> 1) + 1));
+    }
+
+    private void initTable(int cap) {
+        keys = new long[cap];
+        values = new Object[cap];
+        threshold = (cap >> 1) + (cap >> 2);
+    }
+
+    private int roundToPower2(int x) {
+        if(x >= MAX_CAP) return MAX_CAP;
+        if(x <= INITIAL_CAP) return INITIAL_CAP;
+        return (Integer.bitCount(x) == 1) ? x : Integer.highestOneBit(x) << 1;
+    }
+
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if(key == FREE_KEY)
+            return hasZeroKey ? zeroValue : null;
+        int i = indexOf(key);
+        return (i >= 0) ? (V)values[i] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return (key == FREE_KEY) ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the previous value of key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if(key == FREE_KEY) {
+            V old = zeroValue;
+            hasZeroKey = true;
+            zeroValue = value;
+            return old;
+        }
+
+        int mask = keys.length - 1;
+        for(int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if(keys[i] == FREE_KEY) {
+                keys[i] = key;
+                values[i] = value;
+                if(++size >= threshold)
+                    resize(keys.length << 1);
+                return null;
+            }
+            if(keys[i] == key) {
+                V old = (V)values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+    }
+
+    /**
+     * @return the removed value, or null if key does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if(key == FREE_KEY) {
+            V old = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            return old;
+        }
+
+        int i = indexOf(key);
+        if(i < 0)
+            return null;
+        V old = (V)values[i];
+        shiftBack(i);
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(values, null);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = null;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        for(int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if(keys[i] == key)
+                return i;
+            if(keys[i] == FREE_KEY)
+                return -1;
+        }
+    }
+
+    /**
+     * Backward shift deletion, see MTIntIntHashMap.shiftBack
+     */
+    private void shiftBack(int hole) {
+        int mask = keys.length - 1;
+        for(int i = (hole + 1) & mask; keys[i] != FREE_KEY; i = (i + 1) & mask) {
+            int home = mix(keys[i]) & mask;
+            if(((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = FREE_KEY;
+        values[hole] = null; // let GC do its work
+    }
+
+    private void resize(int toSize) {
+        if(keys.length >= MAX_CAP)
+            return;
+        long []oldKeys = keys;
+        Object []oldValues = values;
+        initTable(toSize);
+
+        int mask = toSize - 1;
+        for(int j = 0; j < oldKeys.length; ++j) {
+            long key = oldKeys[j];
+            if(key == FREE_KEY) continue;
+            int i = mix(key) & mask;
+            while(keys[i] != FREE_KEY)
+                i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        if(hasZeroKey)
+            sb.append(FREE_KEY).append('=').append(zeroValue).append(", ");
+        for(int i = 0; i < keys.length; ++i) {
+            if(keys[i] == FREE_KEY) continue;
+            sb.append(keys[i]).append('=').append(values[i]).append(", ");
+        }
+        if(sb.length() > 1)
+            sb.setLength(sb.length() - 2);
+        return sb.append('}').toString();
+    }
+}
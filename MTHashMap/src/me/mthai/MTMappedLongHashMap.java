@@ -0,0 +1,495 @@
+package me.mthai;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Hash map from long to V stored off-heap, in memory-mapped files.
+ * Same open addressing scheme as MTLongObjectHashMap, but a slot is a
+ * run of bytes in the file: the 8-byte key followed by the value itself
+ * (fixed length values) or by the offset of the value in a separate data
+ * file (variable length values). The Java heap only holds the buffers
+ * mapping the files, whatever the number of entries, and opening an
+ * existing file again gives back the map as it was, without rebuilding.
+ *
+ * Layout of the index file: a header, then capacity + 1 slots (the last one
+ * holds key 0, 0 marks a free slot). A file is mapped in chunks of up to
+ * 1GB and slots never cross a chunk boundary.
+ *
+ * Values of a variable length are appended to the data file, updating or
+ * removing one leaves the old bytes behind (there is no compaction).
+ * Not thread-safe.
+ */
+public class MTMappedLongHashMap<V> implements Closeable {
+    static final long MAGIC = 0x4D54484153484D50L; // "MTHASHMP"
+    static final int INITIAL_CAP = 1024;
+    static final int MAX_CAP = 1 << 30;
+    static final long FREE_KEY = 0;
+    static final int CHUNK = 1 << 30;
+
+    // Header fields (offset in the index file)
+    static final int MAGIC_AT = 0;
+    static final int CAPACITY_AT = 8;
+    static final int SIZE_AT = 12;
+    static final int HAS_ZERO_AT = 20;
+    static final int VALUE_LENGTH_AT = 24;
+    static final int DATA_END_AT = 28;
+    static final int HEADER = 36;
+
+    private final File file;
+    private final Serializer<V> serializer;
+    private final boolean fixed; // values are stored in the slots
+    private final int slotSize; // key + value (or offset of the value)
+    private final byte []slotBuffer; // to move a slot around
+    private final int slotsPerChunk;
+    private final int headerSlots; // slots taken by the header at the start of the file
+
+    private Region index;
+    private Region data; // null for fixed length values
+    private int capacity; // power of 2
+    private int threshold;
+
+    /**
+     * Open the map stored in file, or create it if file does not exist.
+     * Values of a variable length go to a second file, file + ".data".
+     */
+    public MTMappedLongHashMap(File file, Serializer<V> serializer) throws IOException {
+        this.file = file;
+        this.serializer = serializer;
+        this.fixed = serializer.fixedLength() >= 0;
+        this.slotSize = 8 + (fixed ? serializer.fixedLength() : 8);
+        this.slotBuffer = new byte[slotSize];
+        if(slotSize > CHUNK)
+            throw new IllegalArgumentException("Value too long: " + serializer.fixedLength());
+        this.slotsPerChunk = CHUNK / slotSize;
+        this.headerSlots = (HEADER + slotSize - 1) / slotSize;
+
+        boolean exists = file.exists() && file.length() > 0;
+        index = new Region(file);
+        if(!fixed)
+            data = new Region(new File(file.getPath() + ".data"));
+
+        if(exists) {
+            index.ensure(HEADER);
+            ByteBuffer header = index.chunk(0);
+            if(header.getLong(MAGIC_AT) != MAGIC)
+                throw new IOException(file + " is not a MTMappedLongHashMap file");
+            if(header.getInt(VALUE_LENGTH_AT) != serializer.fixedLength())
+                throw new IOException(file + " was written with another value length");
+            setCapacity(header.getInt(CAPACITY_AT));
+            index.ensure(slotPosition(capacity) + slotSize);
+            if(!fixed)
+                data.ensure(dataEnd());
+        }
+        else {
+            setCapacity(INITIAL_CAP);
+            index.ensure(slotPosition(capacity) + slotSize);
+            ByteBuffer header = index.chunk(0);
+            header.putLong(MAGIC_AT, MAGIC);
+            header.putInt(CAPACITY_AT, capacity);
+            header.putLong(SIZE_AT, 0);
+            header.putInt(HAS_ZERO_AT, 0);
+            header.putInt(VALUE_LENGTH_AT, serializer.fixedLength());
+            header.putLong(DATA_END_AT, 0);
+        }
+    }
+
+    private void setCapacity(int cap) {
+        capacity = cap;
+        threshold = (cap >> 1) + (cap >> 2);
+    }
+
+    public long size() {
+        return index.chunk(0).getLong(SIZE_AT);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private void setSize(long size) {
+        index.chunk(0).putLong(SIZE_AT, size);
+    }
+
+    private boolean hasZeroKey() {
+        return index.chunk(0).getInt(HAS_ZERO_AT) != 0;
+    }
+
+    private long dataEnd() {
+        return index.chunk(0).getLong(DATA_END_AT);
+    }
+
+    public V get(long key) {
+        int slot = indexOf(key);
+        return (slot >= 0) ? readValue(slot) : null;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Unlike MTHashMap.put, the old value is not returned
+     * because it would have to be read back from the file.
+     * @return true if key was not in the map
+     */
+    public boolean put(long key, V value) {
+        if(key == FREE_KEY) {
+            boolean added = !hasZeroKey();
+            writeValue(capacity, value);
+            if(added) {
+                index.chunk(0).putInt(HAS_ZERO_AT, 1);
+                setSize(size() + 1);
+            }
+            return added;
+        }
+
+        int mask = capacity - 1;
+        for(int i = MTLongObjectHashMap.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = readKey(i);
+            if(k == key) {
+                writeValue(i, value);
+                return false;
+            }
+            if(k == FREE_KEY) {
+                writeKey(i, key);
+                writeValue(i, value);
+                setSize(size() + 1);
+                if(size() - (hasZeroKey() ? 1 : 0) >= threshold)
+                    resize(capacity << 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return true if key was in the map
+     */
+    public boolean remove(long key) {
+        if(key == FREE_KEY) {
+            if(!hasZeroKey())
+                return false;
+            index.chunk(0).putInt(HAS_ZERO_AT, 0);
+            setSize(size() - 1);
+            return true;
+        }
+
+        int i = indexOf(key);
+        if(i < 0)
+            return false;
+        shiftBack(i);
+        setSize(size() - 1);
+        return true;
+    }
+
+    /**
+     * Write all changes to the disk
+     */
+    public void flush() {
+        index.flush();
+        if(data != null)
+            data.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        index.close();
+        if(data != null)
+            data.close();
+    }
+
+    private int indexOf(long key) {
+        if(key == FREE_KEY)
+            return hasZeroKey() ? capacity : -1;
+        int mask = capacity - 1;
+        for(int i = MTLongObjectHashMap.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = readKey(i);
+            if(k == key)
+                return i;
+            if(k == FREE_KEY)
+                return -1;
+        }
+    }
+
+    /**
+     * Backward shift deletion, see MTIntIntHashMap.shiftBack
+     */
+    private void shiftBack(int hole) {
+        int mask = capacity - 1;
+        for(int i = (hole + 1) & mask; ; i = (i + 1) & mask) {
+            long key = readKey(i);
+            if(key == FREE_KEY)
+                break;
+            int home = MTLongObjectHashMap.mix(key) & mask;
+            if(((i - home) & mask) >= ((i - hole) & mask)) {
+                copySlot(i, hole);
+                hole = i;
+            }
+        }
+        writeKey(hole, FREE_KEY);
+    }
+
+    /**
+     * Rehash into a new index file next to the current one, then replace it.
+     * The data file does not change: slots keep pointing at the same values.
+     */
+    private void resize(int toSize) {
+        if(capacity >= MAX_CAP)
+            return;
+        try {
+            File tmp = new File(file.getPath() + ".resize");
+            Files.deleteIfExists(tmp.toPath());
+            Region old = index;
+            int oldCapacity = capacity;
+
+            setCapacity(toSize);
+            index = new Region(tmp);
+            index.ensure(slotPosition(capacity) + slotSize);
+            ByteBuffer oldHeader = old.chunk(0);
+            for(int b = 0; b < HEADER; ++b)
+                index.chunk(0).put(b, oldHeader.get(b));
+            index.chunk(0).putInt(CAPACITY_AT, capacity);
+
+            int mask = capacity - 1;
+            for(int j = 0; j <= oldCapacity; ++j) {
+                long from = slotPosition(j); // a slot's position does not depend on capacity
+                ByteBuffer src = old.chunk(from);
+                int off = Region.offset(from);
+                long key = src.getLong(off);
+                if(key == FREE_KEY && j != oldCapacity) continue;
+                if(j == oldCapacity && !hasZeroKey()) continue;
+
+                int i = capacity; // key 0 keeps its own slot, at the end
+                if(j != oldCapacity) {
+                    i = MTLongObjectHashMap.mix(key) & mask;
+                    while(readKey(i) != FREE_KEY)
+                        i = (i + 1) & mask;
+                }
+                for(int b = 0; b < slotSize; ++b)
+                    slotBuffer[b] = src.get(off + b);
+                long to = slotPosition(i);
+                ByteBuffer des = index.chunk(to);
+                int desOff = Region.offset(to);
+                for(int b = 0; b < slotSize; ++b)
+                    des.put(desOff + b, slotBuffer[b]);
+            }
+            index.flush();
+            index.close();
+            old.close();
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            index = new Region(file);
+            index.ensure(slotPosition(capacity) + slotSize);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException("Cannot resize " + file, e);
+        }
+    }
+
+    private long slotPosition(int slot) {
+        long g = (long)slot + headerSlots;
+        return (g / slotsPerChunk) * CHUNK + (g % slotsPerChunk) * slotSize;
+    }
+
+    private long readKey(int slot) {
+        long pos = slotPosition(slot);
+        return index.chunk(pos).getLong(Region.offset(pos));
+    }
+
+    private void writeKey(int slot, long key) {
+        long pos = slotPosition(slot);
+        index.chunk(pos).putLong(Region.offset(pos), key);
+    }
+
+    private V readValue(int slot) {
+        long pos = slotPosition(slot);
+        ByteBuffer buf = index.chunk(pos);
+        int off = Region.offset(pos) + 8;
+        if(fixed)
+            return serializer.read(buf, off, serializer.fixedLength());
+
+        long at = buf.getLong(off);
+        ByteBuffer dataBuf = data.chunk(at);
+        int dataOff = Region.offset(at);
+        return serializer.read(dataBuf, dataOff + 4, dataBuf.getInt(dataOff));
+    }
+
+    private void writeValue(int slot, V value) {
+        long pos = slotPosition(slot);
+        ByteBuffer buf = index.chunk(pos);
+        int off = Region.offset(pos) + 8;
+        if(fixed) {
+            serializer.write(value, buf, off);
+            return;
+        }
+
+        // Append [length][bytes] to the data file, never across 2 chunks
+        int length = serializer.length(value);
+        if(length + 4 > CHUNK)
+            throw new IllegalArgumentException("Value too long: " + length);
+        long at = dataEnd();
+        if(Region.offset(at) + 4L + length > CHUNK)
+            at = (at / CHUNK + 1) * CHUNK;
+        try {
+            data.ensure(at + 4 + length);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer dataBuf = data.chunk(at);
+        int dataOff = Region.offset(at);
+        dataBuf.putInt(dataOff, length);
+        serializer.write(value, dataBuf, dataOff + 4);
+
+        index.chunk(0).putLong(DATA_END_AT, at + 4 + length);
+        buf.putLong(off, at);
+    }
+
+    private void copySlot(int from, int to) {
+        long src = slotPosition(from), des = slotPosition(to);
+        ByteBuffer srcBuf = index.chunk(src), desBuf = index.chunk(des);
+        int srcOff = Region.offset(src), desOff = Region.offset(des);
+        for(int b = 0; b < slotSize; ++b)
+            slotBuffer[b] = srcBuf.get(srcOff + b);
+        for(int b = 0; b < slotSize; ++b)
+            desBuf.put(desOff + b, slotBuffer[b]);
+    }
+
+    /**
+     * A file mapped in chunks of CHUNK bytes (only the last one can be
+     * shorter), chunk i maps bytes [i * CHUNK, (i + 1) * CHUNK)
+     */
+    static class Region implements Closeable {
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private MappedByteBuffer []chunks = new MappedByteBuffer[0];
+
+        Region(File file) throws IOException {
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+        }
+
+        ByteBuffer chunk(long pos) {
+            return chunks[(int)(pos / CHUNK)];
+        }
+
+        static int offset(long pos) {
+            return (int)(pos % CHUNK);
+        }
+
+        /**
+         * Map (and grow the file if needed) at least the first length bytes
+         */
+        void ensure(long length) throws IOException {
+            int count = (int)((length + CHUNK - 1) / CHUNK);
+            if(count > chunks.length) {
+                MappedByteBuffer []grown = new MappedByteBuffer[count];
+                System.arraycopy(chunks, 0, grown, 0, chunks.length);
+                chunks = grown;
+            }
+            for(int i = 0; i < count; ++i) {
+                long need = Math.min(CHUNK, length - (long)i * CHUNK);
+                if(chunks[i] != null && chunks[i].capacity() >= need)
+                    continue;
+                // Grow by doubling so appending to the data file does not remap
+                // every time, and map at least what is already in the file
+                long size = (chunks[i] == null) ? need : Math.max(need, 2L * chunks[i].capacity());
+                size = Math.max(size, channel.size() - (long)i * CHUNK);
+                size = Math.min(size, CHUNK);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long)i * CHUNK, size);
+            }
+        }
+
+        void flush() {
+            for(MappedByteBuffer chunk : chunks)
+                if(chunk != null)
+                    chunk.force();
+        }
+
+        @Override
+        public void close() throws IOException {
+            chunks = new MappedByteBuffer[0];
+            channel.close();
+            raf.close();
+        }
+    }
+
+    /**
+     * Converts values to bytes and back, reading and writing at an
+     * absolute offset of a buffer so that no view object is created.
+     */
+    public interface Serializer<T> {
+        /**
+         * @return number of bytes of every value, or -1 if values
+         * have different lengths
+         */
+        int fixedLength();
+
+        /**
+         * Number of bytes of value, only used when fixedLength() < 0
+         */
+        int length(T value);
+
+        void write(T value, ByteBuffer to, int offset);
+
+        T read(ByteBuffer from, int offset, int length);
+    }
+
+    public static final Serializer<Long> LONG = new Serializer<Long>() {
+        public int fixedLength() { return 8; }
+        public int length(Long value) { return 8; }
+        public void write(Long value, ByteBuffer to, int offset) { to.putLong(offset, value); }
+        public Long read(ByteBuffer from, int offset, int length) { return from.getLong(offset); }
+    };
+
+    public static final Serializer<String> STRING = new Serializer<String>() {
+        public int fixedLength() { return -1; }
+        public int length(String value) { return value.getBytes(StandardCharsets.UTF_8).length; }
+
+        public void write(String value, ByteBuffer to, int offset) {
+            byte []bytes = value.getBytes(StandardCharsets.UTF_8);
+            for(int i = 0; i < bytes.length; ++i)
+                to.put(offset + i, bytes[i]);
+        }
+
+        public String read(ByteBuffer from, int offset, int length) {
+            byte []bytes = new byte[length];
+            for(int i = 0; i < length; ++i)
+                bytes[i] = from.get(offset + i);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Records of exactly length bytes
+     */
+    public static Serializer<byte[]> bytes(final int length) {
+        return new Serializer<byte[]>() {
+            public int fixedLength() { return length; }
+            public int length(byte[] value) { return length; }
+
+            public void write(byte[] value, ByteBuffer to, int offset) {
+                if(value.length != length)
+                    throw new IllegalArgumentException("Expected " + length + " bytes, got " + value.length);
+                for(int i = 0; i < length; ++i)
+                    to.put(offset + i, value[i]);
+            }
+
+            public byte[] read(ByteBuffer from, int offset, int len) {
+                byte []bytes = new byte[len];
+                for(int i = 0; i < len; ++i)
+                    bytes[i] = from.get(offset + i);
+                return bytes;
+            }
+        };
+    }
+}
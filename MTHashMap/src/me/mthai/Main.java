@@ -4,6 +4,7 @@ public class Main {
 
     public static void main(String[] args) {
         MTHashMap<Character, Integer> map = new MTHashMap<>();
+        map.setMetrics(new MTHashMap.Metrics());
 
         for(int i = 0; i < 10; ++i) {
             map.put((char)('a' + i), i + 1);
@@ -15,5 +16,13 @@ public class Main {
         System.out.printf("value of key 'g' is: %s\n", map.get('g'));
 
         System.out.println(map);
+        System.out.println("Metrics: " + map.getMetrics());
+
+        MTIntIntHashMap intMap = new MTIntIntHashMap();
+        for(int i = 0; i < 10; ++i)
+            intMap.put(i * 8, i + 1); // multiples of 8, bad for low bits
+        intMap.remove(16);
+        System.out.printf("value of key 24 is: %d\n", intMap.get(24));
+        System.out.println(intMap);
     }
 }
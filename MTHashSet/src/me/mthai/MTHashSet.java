@@ -1,42 +1,72 @@
 package me.mthai;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+
 public class MTHashSet<K> {
-    final int INITIAL_CAP = 4;
-    final int MAX_CAP = 1 << 30;
+    static final int INITIAL_CAP = 4;
+    static final int MAX_CAP = 1 << 30;
 
     private Entry<K> [] table;
     private int size;
 
+    /**
+     * Incremental resize, see MTHashMap: while oldTable != null, each
+     * operation moves its next migrateStep buckets into table.
+     */
+    private Entry<K> [] oldTable;
+    private int migrateIndex;
+    private final int migrateStep; // 0: expand all at once
+
+    private Metrics metrics; // null: not measured
+    private int lookupProbes; // of the current find
+
     public MTHashSet() {
-        createTable(INITIAL_CAP);
+        this(INITIAL_CAP, 0);
     }
 
     public MTHashSet(int initialCapacity) {
+        this(initialCapacity, 0);
+    }
+
+    /**
+     * @param migrateStep if > 0, expand incrementally, moving at most this
+     *                    many buckets per add/contains/remove
+     */
+    public MTHashSet(int initialCapacity, int migrateStep) {
+        this.migrateStep = migrateStep;
         int powerOf2 = roundToPowerOf2(initialCapacity);
         createTable(powerOf2);
     }
 
     private void createTable(int cap) {
         table = new Entry[cap];
-
-        Console.log("Created with initial size = " + cap);
     }
 
     public boolean add(K key) {
-        if(size == table.length)
-            expandTable();
-
-        int hash = key.hashCode();
-        int id = indexFor(hash, table.length);
+        return add(key, hash(key));
+    }
 
+    private boolean add(K key, int hash) {
+        migrate();
         // Check if already exist
-        if(contains(key))
+        if(find(key, hash))
             return false;
 
-        Entry<K> newEntry = new Entry<>(key);
+        // While migrating, the table has just doubled so there is room
+        if(size >= table.length && oldTable == null)
+            expandTable();
+
+        int id = indexFor(hash, table.length);
+
+        Entry<K> newEntry = new Entry<>(hash, key);
         newEntry.next = table[id];
         table[id] = newEntry;
         size++;
+        if(metrics != null)
+            metrics.chained(newEntry);
         return true;
     }
 
@@ -44,48 +74,118 @@ public class MTHashSet<K> {
      * @return true if not already contain the element
      */
     public boolean contains(K key) {
-        int hash = key.hashCode();
-        int id = indexFor(hash, table.length);
+        migrate();
+        return find(key, hash(key));
+    }
+
+    private boolean find(K key, int hash) {
+        lookupProbes = 0;
+        boolean rs = find(table, key, hash) || (oldTable != null && find(oldTable, key, hash));
+        if(metrics != null) // one lookup, even if it searched both tables
+            metrics.probed(lookupProbes);
+        return rs;
+    }
 
-        for(Entry<K> e = table[id]; e != null; e = e.next) {
-            if(e.key.equals(key) && e.key.hashCode() == hash)
-                return true;
+    /**
+     * Adds the number of entries looked at to lookupProbes
+     */
+    private boolean find(Entry<K> []tab, K key, int hash) {
+        int id = indexFor(hash, tab.length);
+
+        int probes = 0;
+        Entry<K> e = tab[id];
+        for(; e != null; e = e.next) {
+            probes++;
+            if(e.hash == hash && e.key.equals(key))
+                break;
         }
-        return false;
+        lookupProbes += probes;
+        return e != null;
     }
 
     /**
      * @return false if element does not exist
      */
     public boolean remove(K key) {
-        int hash = key.hashCode();
-        int id = indexFor(hash, table.length);
-        boolean rs = false;
+        migrate();
+        int hash = hash(key);
+        boolean rs = remove(table, key, hash)
+                || (oldTable != null && remove(oldTable, key, hash));
+
+        if(rs) {
+            size--;
+            return true;
+        }
+        if(metrics != null)
+            metrics.failedRemoves++;
+        return false;
+    }
+
+    private boolean remove(Entry<K> []tab, K key, int hash) {
+        int id = indexFor(hash, tab.length);
 
-        Entry<K> prev = table[id];
-        if(prev != null && prev.key.equals(key) && prev.key.hashCode() == hash) {
-            table[id] = prev.next;
-            rs = true;
+        Entry<K> prev = tab[id];
+        if(prev != null && prev.hash == hash && prev.key.equals(key)) {
+            tab[id] = prev.next;
+            return true;
         }
         else if(prev != null) {
-            for(Entry<K> e = table[id]; e != null; e = e.next) {
-                if(e.key.equals(key) && e.key.hashCode() == hash) {
+            for(Entry<K> e = tab[id]; e != null; e = e.next) {
+                if(e.hash == hash && e.key.equals(key)) {
                     prev.next = e.next;
-                    rs = true;
-                    break;
+                    return true;
                 }
                 prev = e;
             }
         }
-
-        if(rs) {
-            size--;
-            return true;
-        }
-        Console.log("Remove " + key + " but it does not exist.");
         return false;
     }
 
+    /**
+     * Add all elements of other, the table is expanded at most once
+     * and the hashes already stored in other are reused.
+     */
+    public boolean addAll(MTHashSet<? extends K> other) {
+        ensureCapacity(size + other.size);
+        boolean changed = addAll(other.table);
+        if(other.oldTable != null)
+            changed |= addAll(other.oldTable);
+        return changed;
+    }
+
+    private boolean addAll(Entry<? extends K> []tab) {
+        boolean changed = false;
+        for(Entry<? extends K> first : tab)
+            for(Entry<? extends K> e = first; e != null; e = e.next)
+                changed |= add(e.key, e.hash);
+        return changed;
+    }
+
+    public boolean addAll(Collection<? extends K> keys) {
+        ensureCapacity(size + keys.size());
+        boolean changed = false;
+        for(K key : keys)
+            changed |= add(key);
+        return changed;
+    }
+
+    /**
+     * Expand the table (in one go) so that it can hold expected elements
+     */
+    private void ensureCapacity(int expected) {
+        if(expected <= table.length || table.length >= MAX_CAP)
+            return;
+        while(oldTable != null) // finish the incremental expansion first
+            migrate();
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        int newSize = roundToPowerOf2(expected);
+        Entry<K> []newTable = new Entry[newSize];
+        transfer(newTable, newSize);
+        table = newTable;
+        if(metrics != null)
+            metrics.resized(System.nanoTime() - start);
+    }
+
     private int roundToPowerOf2(int n) {
         if(n >= MAX_CAP)
             return MAX_CAP;
@@ -97,27 +197,74 @@ public class MTHashSet<K> {
     }
 
     private void expandTable() {
-        int newSize = size * 2;
+        if(table.length >= MAX_CAP)
+            return;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        int newSize = table.length * 2;
         Entry<K> []newTable = new Entry[newSize];
-        transfer(newTable, newSize);
+        if(migrateStep > 0) {
+            oldTable = table;
+            migrateIndex = 0;
+        }
+        else
+            transfer(newTable, newSize);
         table = newTable;
-
-        Console.log("Expanded to size = " + newSize);
+        if(metrics != null)
+            metrics.resized(System.nanoTime() - start);
     }
 
     private void transfer(Entry<K> []newTable, int newSize) {
-        for(int i = 0; i < table.length; ++i) {
-            for(Entry<K> e = table[i]; e != null;) {
-                int hash = e.key.hashCode();
-                int newId = indexFor(hash, newSize);
+        for(int i = 0; i < table.length; ++i)
+            moveBucket(table, i, newTable, newSize);
+    }
 
-                Entry<K> next = e.next;
-                e.next = newTable[newId];
-                newTable[newId] = e;
+    /**
+     * Move the next few buckets of oldTable, if an expansion is in progress
+     */
+    private void migrate() {
+        if(oldTable == null)
+            return;
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        int end = Math.min(migrateIndex + migrateStep, oldTable.length);
+        for(; migrateIndex < end; ++migrateIndex)
+            moveBucket(oldTable, migrateIndex, table, table.length);
+        if(migrateIndex == oldTable.length)
+            oldTable = null;
+        if(metrics != null)
+            metrics.resizeNanos += System.nanoTime() - start; // still the same expansion
+    }
 
-                e = next;
-            }
+    /**
+     * Start recording into m, which can be shared by several sets.
+     * null stops recording.
+     */
+    public void setMetrics(Metrics m) {
+        metrics = m;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    private void moveBucket(Entry<K> []from, int i, Entry<K> []newTable, int newSize) {
+        for(Entry<K> e = from[i]; e != null;) {
+            int newId = indexFor(e.hash, newSize); // no hashCode() call
+
+            Entry<K> next = e.next;
+            e.next = newTable[newId];
+            newTable[newId] = e;
+
+            e = next;
         }
+        from[i] = null;
+    }
+
+    /**
+     * Spread the high bits of hashCode() into the low bits used by indexFor
+     */
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
     }
 
     private int indexFor(int hash, int length) {
@@ -130,14 +277,109 @@ public class MTHashSet<K> {
         for(int i = 0; i < table.length; ++i)
             for(Entry<K> e = table[i]; e != null; e = e.next)
                 s += e + " ";
+        if(oldTable != null)
+            for(int i = 0; i < oldTable.length; ++i)
+                for(Entry<K> e = oldTable[i]; e != null; e = e.next)
+                    s += e + " ";
         return s;
     }
 
+    public interface MetricsMXBean {
+        long getResizes();
+        long getResizeNanos();
+        long getLookups();
+        double getAverageProbeLength();
+        int getMaxChainLength();
+        long getFailedRemoves();
+    }
+
+    /**
+     * Same counters as MTHashMap.Metrics, plus removals of elements that
+     * were not there. Plain fields, so readers on other threads may lag.
+     */
+    public static class Metrics implements MetricsMXBean {
+        long resizes, resizeNanos;
+        long lookups, probes;
+        int maxChainLength;
+        long failedRemoves;
+
+        void resized(long nanos) {
+            resizes++;
+            resizeNanos += nanos;
+        }
+
+        void probed(int n) {
+            lookups++;
+            probes += n;
+        }
+
+        void chained(Entry<?> first) {
+            int length = 0;
+            for(Entry<?> e = first; e != null; e = e.next)
+                length++;
+            if(length > maxChainLength)
+                maxChainLength = length;
+        }
+
+        @Override
+        public long getResizes() {
+            return resizes;
+        }
+
+        @Override
+        public long getResizeNanos() {
+            return resizeNanos;
+        }
+
+        @Override
+        public long getLookups() {
+            return lookups;
+        }
+
+        @Override
+        public double getAverageProbeLength() {
+            return (lookups == 0) ? 0 : (double)probes / lookups;
+        }
+
+        @Override
+        public int getMaxChainLength() {
+            return maxChainLength;
+        }
+
+        @Override
+        public long getFailedRemoves() {
+            return failedRemoves;
+        }
+
+        /**
+         * Publish these counters as me.mthai:type=MTHashSet,name=...
+         * on the platform MBean server
+         */
+        public ObjectName register(String name) {
+            try {
+                ObjectName on = new ObjectName("me.mthai:type=MTHashSet,name=" + ObjectName.quote(name));
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+                return on;
+            }
+            catch(JMException e) {
+                throw new IllegalArgumentException("Cannot register " + name, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{resizes=%d, resizeNanos=%d, lookups=%d, averageProbeLength=%.2f, maxChainLength=%d, failedRemoves=%d}",
+                    resizes, resizeNanos, lookups, getAverageProbeLength(), maxChainLength, failedRemoves);
+        }
+    }
+
     static class Entry<K> {
+        final int hash; // hash(key), computed once
         K key;
         Entry<K> next;
 
-        public Entry(K key) {
+        public Entry(int hash, K key) {
+            this.hash = hash;
             this.key = key;
         }
 
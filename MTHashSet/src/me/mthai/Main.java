@@ -6,6 +6,7 @@ public class Main {
 
     public static void main(String[] args) {
         MTHashSet<Integer> set = new MTHashSet<>();
+        set.setMetrics(new MTHashSet.Metrics());
 
         int []a = {1, 18, 6, 7, 12, 4, 13, 13, 15, 15};
         int []b = {6, 10, 13, 15, 9, 13};
@@ -22,5 +23,7 @@ public class Main {
 
         for(int ci : c)
             System.out.printf("Contains %d: %b\n", ci, set.contains(ci));
+
+        System.out.println("Metrics: " + set.getMetrics());
     }
 }
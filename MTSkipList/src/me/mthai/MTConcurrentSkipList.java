@@ -0,0 +1,202 @@
+package me.mthai;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free version of MTSkipList, with set semantics (no duplicate).
+ * Each next[lv] pointer is an AtomicMarkableReference: its mark means the
+ * node owning it is being removed (logical deletion). remove() marks the
+ * node from top level down to level 0, whoever marks level 0 wins, and
+ * marked nodes are then unlinked (physical deletion) by any thread that
+ * walks past them. contains() never writes anything.
+ * References:
+ * - The Art of Multiprocessor Programming (Herlihy, Shavit), chapter 14.4
+ */
+public class MTConcurrentSkipList<V extends Comparable<V>> {
+    final int MAX_LEVEL = 32; // 0->31
+
+    private final Node<V> head = new Node<>(null, MAX_LEVEL - 1); // smaller than everything
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * @return false if val is already in the list
+     */
+    public boolean add(V val) {
+        int topLevel = levelToAdd();
+        Node<V> []preds = new Node[MAX_LEVEL];
+        Node<V> []succs = new Node[MAX_LEVEL];
+        for(;;) {
+            if(find(val, preds, succs))
+                return false;
+            Node<V> newNode = new Node<>(val, topLevel);
+            for(int lv = 0; lv <= topLevel; ++lv)
+                newNode.next[lv].set(succs[lv], false);
+
+            // Once linked at level 0 the node is in the list
+            if(!preds[0].next[0].compareAndSet(succs[0], newNode, false, false))
+                continue;
+            size.increment();
+
+            // Upper levels are only shortcuts, link them one by one
+            for(int lv = 1; lv <= topLevel; ++lv) {
+                for(;;) {
+                    Node<V> succ = succs[lv];
+                    Node<V> cur = newNode.next[lv].getReference();
+                    if(newNode.next[lv].isMarked())
+                        return true; // already being removed, stop linking
+                    if(cur != succ && !newNode.next[lv].compareAndSet(cur, succ, false, false))
+                        continue;
+                    if(preds[lv].next[lv].compareAndSet(succ, newNode, false, false))
+                        break;
+                    find(val, preds, succs);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return false if val is not in the list
+     */
+    public boolean remove(V val) {
+        Node<V> []preds = new Node[MAX_LEVEL];
+        Node<V> []succs = new Node[MAX_LEVEL];
+        if(!find(val, preds, succs))
+            return false;
+
+        Node<V> victim = succs[0];
+        boolean []marked = {false};
+        // Mark upper levels first so no new node gets linked after it
+        for(int lv = victim.topLevel; lv >= 1; --lv) {
+            Node<V> succ = victim.next[lv].get(marked);
+            while(!marked[0]) {
+                victim.next[lv].compareAndSet(succ, succ, false, true);
+                succ = victim.next[lv].get(marked);
+            }
+        }
+
+        Node<V> succ = victim.next[0].get(marked);
+        for(;;) {
+            boolean iMarkedIt = victim.next[0].compareAndSet(succ, succ, false, true);
+            succ = victim.next[0].get(marked);
+            if(iMarkedIt) {
+                size.decrement();
+                find(val, preds, succs); // unlink it
+                return true;
+            }
+            if(marked[0])
+                return false; // another thread removed it first
+        }
+    }
+
+    /**
+     * Wait-free: skips over marked nodes without unlinking them
+     */
+    public boolean contains(V val) {
+        boolean []marked = {false};
+        Node<V> pred = head, cur = null;
+        for(int lv = MAX_LEVEL - 1; lv >= 0; --lv) {
+            cur = pred.next[lv].getReference();
+            while(cur != null) {
+                Node<V> succ = cur.next[lv].get(marked);
+                while(marked[0] && succ != null) { // cur is being removed
+                    cur = succ;
+                    succ = cur.next[lv].get(marked);
+                }
+                if(marked[0]) { // the last node of this level is being removed
+                    cur = null;
+                    break;
+                }
+                if(cur.val.compareTo(val) < 0) {
+                    pred = cur;
+                    cur = succ;
+                }
+                else
+                    break;
+            }
+        }
+        return cur != null && cur.val.compareTo(val) == 0;
+    }
+
+    public int size() {
+        return (int)size.sum();
+    }
+
+    /**
+     * Fill preds/succs with the nodes around val at every level,
+     * unlinking marked nodes on the way.
+     * @return true if val is in the list
+     */
+    private boolean find(V val, Node<V> []preds, Node<V> []succs) {
+        boolean []marked = {false};
+        retry:
+        for(;;) {
+            Node<V> pred = head, cur = null;
+            for(int lv = MAX_LEVEL - 1; lv >= 0; --lv) {
+                cur = pred.next[lv].getReference();
+                while(cur != null) {
+                    Node<V> succ = cur.next[lv].get(marked);
+                    while(marked[0]) {
+                        if(!pred.next[lv].compareAndSet(cur, succ, false, false))
+                            continue retry; // pred changed or got marked, start over
+                        cur = succ;
+                        if(cur == null)
+                            break;
+                        succ = cur.next[lv].get(marked);
+                    }
+                    if(cur != null && cur.val.compareTo(val) < 0) {
+                        pred = cur;
+                        cur = succ;
+                    }
+                    else
+                        break;
+                }
+                preds[lv] = pred;
+                succs[lv] = cur;
+            }
+            return cur != null && cur.val.compareTo(val) == 0;
+        }
+    }
+
+    /**
+     * Each level with probability 1/2, from the bits of one random int:
+     * the number of trailing 1s. ThreadLocalRandom so threads don't
+     * fight over a shared seed.
+     */
+    private int levelToAdd() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        return Math.min(Integer.numberOfTrailingZeros(~bits), MAX_LEVEL - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for(Node<V> nd = head.next[0].getReference(); nd != null; nd = nd.next[0].getReference()) {
+            if(!nd.next[0].isMarked())
+                sb.append(nd).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    static class Node<T> {
+        final T val;
+        final int topLevel;
+        final AtomicMarkableReference<Node<T>> []next; // mark = this node is removed
+
+        @SuppressWarnings("unchecked")
+        public Node(T val, int topLevel) {
+            this.val = val;
+            this.topLevel = topLevel;
+            next = new AtomicMarkableReference[topLevel + 1];
+            for(int lv = 0; lv <= topLevel; ++lv)
+                next[lv] = new AtomicMarkableReference<>(null, false);
+        }
+
+        @Override
+        public String toString() {
+            return "{" + val + "}";
+        }
+    }
+}
@@ -1,61 +1,231 @@
 package me.mthai;
 
-import java.io.PrintWriter;
-import java.util.Random;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Created by mt on 2/18/2016.
+ *
+ * Memory layout: level 0 is a plain field of the node and only nodes
+ * that reach level 1 or higher get tower arrays, so half of the nodes are
+ * a single object and walking level 0 is one load per hop. Level 0 links
+ * always jump over 1 element so they need no width. add and remove reuse
+ * the same scratch arrays, so adding a level-1 node allocates only the
+ * node; a taller node (about half of them) also allocates its up and
+ * width arrays. Not thread-safe, see MTConcurrentSkipList for that.
  */
-public class MTSkipList<V extends Comparable<V>> {
+public class MTSkipList<V extends Comparable<V>> implements Iterable<V> {
     final int MAX_LEVEL = 32; // 0->31
 
-    private Random rand = new Random();
-    private Node<V> head = new Node<>(null, 33);
+    private long seed; // xorshift state of the level generator, never 0
+    private Node<V> head = new Node<>(null, MAX_LEVEL);
     private int levels = 1; // current number of levels
+    private int size;
 
-    private PrintWriter out = new PrintWriter(System.out); // debug
+    // Scratch for add/remove: the last node before the new position at
+    // each level, and its position (head is 0)
+    private final Node<V> []update = new Node[MAX_LEVEL];
+    private final int []rank = new int[MAX_LEVEL];
+
+    public MTSkipList() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * @param seed of the level generator, the same seed and the same adds
+     *             always build the same list
+     */
+    public MTSkipList(long seed) {
+        this.seed = (seed != 0) ? seed : 0x9e3779b97f4a7c15L;
+    }
 
     public void add(V val) {
         int addLevel = levelToAdd();
 
-        Node<V> newNode = new Node<>(val, addLevel + 1);
         Node<V> cur = head;
+        int pos = 0;
         for(int lv = levels - 1; lv >= 0; --lv) {
             // Find the correct position to add
-            for(; cur.next[lv] != null; cur = cur.next[lv]) {
-                if(cur.next[lv].val.compareTo(val) > 0)
+            for(Node<V> nx; (nx = cur.next(lv)) != null; cur = nx) {
+                if(nx.val.compareTo(val) > 0)
                     break;
+                pos += cur.width(lv);
             }
-            // Also, if we're at the correct level, add it!
+            update[lv] = cur;
+            rank[lv] = pos;
+        }
+
+        // The new node is at position pos + 1: links that jump over it get
+        // one longer, links that now end at it are cut in two
+        Node<V> newNode = new Node<>(val, addLevel + 1);
+        for(int lv = 0; lv < levels; ++lv) {
+            Node<V> prev = update[lv];
             if(lv <= addLevel) {
-                newNode.next[lv] = cur.next[lv];
-                cur.next[lv] = newNode;
+                newNode.link(lv, prev.next(lv), prev.width(lv) - (pos - rank[lv]));
+                prev.link(lv, newNode, pos + 1 - rank[lv]);
+            }
+            else if(prev.next(lv) != null)
+                prev.width[lv - 1]++;
+        }
+        size++;
+    }
+
+    /**
+     * Remove one occurrence of val
+     * @return false if val does not exist
+     */
+    public boolean remove(V val) {
+        Node<V> cur = head;
+        for(int lv = levels - 1; lv >= 0; --lv) {
+            // Stop before the first node >= val, which is the one to remove
+            for(Node<V> nx; (nx = cur.next(lv)) != null && nx.val.compareTo(val) < 0; )
+                cur = nx;
+            update[lv] = cur;
+        }
+
+        Node<V> target = cur.next;
+        if(target == null || target.val.compareTo(val) != 0)
+            return false;
+        for(int lv = 0; lv < levels; ++lv) {
+            Node<V> prev = update[lv];
+            if(prev.next(lv) == target)
+                prev.link(lv, target.next(lv), prev.width(lv) + target.width(lv) - 1);
+            else if(prev.next(lv) != null)
+                prev.width[lv - 1]--;
+        }
+        while(levels > 1 && head.next(levels - 1) == null)
+            levels--;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the element at index k in ascending order, in O(log n)
+     */
+    public V select(int k) {
+        if(k < 0 || k >= size)
+            throw new IndexOutOfBoundsException("k = " + k + ", size = " + size);
+        Node<V> cur = head;
+        int pos = 0;
+        for(int lv = levels - 1; lv >= 0; --lv) {
+            // Go as far as possible without passing position k + 1
+            while(cur.next(lv) != null && pos + cur.width(lv) <= k + 1) {
+                pos += cur.width(lv);
+                cur = cur.next(lv);
+            }
+        }
+        return cur.val;
+    }
+
+    /**
+     * @return the number of elements < val, in O(log n)
+     */
+    public int rank(V val) {
+        Node<V> cur = head;
+        int pos = 0;
+        for(int lv = levels - 1; lv >= 0; --lv) {
+            for(Node<V> nx; (nx = cur.next(lv)) != null && nx.val.compareTo(val) < 0; cur = nx)
+                pos += cur.width(lv);
+        }
+        return pos;
+    }
+
+    /**
+     * @return the greatest element <= val, null if there is none
+     */
+    public V floor(V val) {
+        Node<V> nd = lastBefore(val, true);
+        return (nd != head) ? nd.val : null;
+    }
+
+    /**
+     * @return the greatest element < val, null if there is none
+     */
+    public V lower(V val) {
+        Node<V> nd = lastBefore(val, false);
+        return (nd != head) ? nd.val : null;
+    }
+
+    /**
+     * @return the smallest element >= val, null if there is none
+     */
+    public V ceiling(V val) {
+        Node<V> nd = lastBefore(val, false).next;
+        return (nd != null) ? nd.val : null;
+    }
+
+    /**
+     * @return the smallest element > val, null if there is none
+     */
+    public V higher(V val) {
+        Node<V> nd = lastBefore(val, true).next;
+        return (nd != null) ? nd.val : null;
+    }
+
+    /**
+     * Elements in [from, to) in ascending order. Nothing is copied: the
+     * iterator finds from in O(log n) then follows level 0, so visiting
+     * k elements costs O(log n + k). The list must not be modified while
+     * iterating.
+     */
+    public Iterable<V> subList(V from, V to) {
+        return () -> new Cursor(lastBefore(from, false).next, to);
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new Cursor(head.next, null);
+    }
+
+    /**
+     * The last node < val (or <= val if inclusive), head if there is none
+     */
+    private Node<V> lastBefore(V val, boolean inclusive) {
+        Node<V> cur = head;
+        for(int lv = levels - 1; lv >= 0; --lv) {
+            for(Node<V> nx; (nx = cur.next(lv)) != null; cur = nx) {
+                int compare = nx.val.compareTo(val);
+                if(compare > 0 || (compare == 0 && !inclusive))
+                    break;
             }
         }
+        return cur;
     }
 
     public boolean contains(V val) {
         Node<V> cur = head;
         for(int lv = levels - 1; lv >= 0; --lv) {
-            for(; cur.next[lv] != null; cur = cur.next[lv]) {
-                if(cur.next[lv].val.compareTo(val) == 0)
+            for(Node<V> nx; (nx = cur.next(lv)) != null; cur = nx) {
+                int compare = nx.val.compareTo(val);
+                if(compare == 0)
                     return true;
-                else if(cur.next[lv].val.compareTo(val) > 0)
+                else if(compare > 0)
                     break; // not found at this level
             }
         }
         return false;
     }
 
+    /**
+     * Each level with probability 1/2, at most one level above the current
+     * top: the number of trailing 1s of one xorshift step, so no coin is
+     * flipped per level and nothing is allocated
+     */
     private int levelToAdd() {
-        int addLevel = 0; // level to add
-        while(rand.nextBoolean()) {
-            addLevel++;
-            if(addLevel == levels) {
-                levels++;
-                break;
-            }
-        }
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        int addLevel = Math.min(Long.numberOfTrailingZeros(~seed), Math.min(levels, MAX_LEVEL - 1));
+        if(addLevel == levels)
+            levels++;
         return addLevel;
     }
 
@@ -64,7 +234,7 @@ public class MTSkipList<V extends Comparable<V>> {
         String rs = ""; // for simplicity, don't judge me :(
         for(int i = levels - 1; i >= 0; --i) {
             rs += String.format("[%d]: ", i);
-            for(Node nd = head.next[i]; nd != null; nd = nd.next[i])
+            for(Node nd = head.next(i); nd != null; nd = nd.next(i))
                 rs += nd + " ";
             if(i > 0)
                 rs += '\n';
@@ -72,13 +242,62 @@ public class MTSkipList<V extends Comparable<V>> {
         return rs;
     }
 
+    /**
+     * Walks level 0 from a node until the first element >= to
+     */
+    private class Cursor implements Iterator<V> {
+        private Node<V> node;
+        private final V to; // exclusive, null for no bound
+
+        Cursor(Node<V> first, V to) {
+            this.node = first;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return node != null && (to == null || node.val.compareTo(to) < 0);
+        }
+
+        @Override
+        public V next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            V val = node.val;
+            node = node.next;
+            return val;
+        }
+    }
+
     static class Node<T> {
         T val;
-        Node<T> []next; // next_i = pointer to the next node at level i
+        Node<T> next; // next node at level 0
+        Node<T> []up; // up_i = pointer to the next node at level i + 1, null if nLevel = 1
+        int []width; // width_i = number of level 0 steps to up_i, unused if up_i is null
 
         public Node(T val, int nLevel) {
             this.val = val;
-            next = new Node[nLevel];
+            if(nLevel > 1) {
+                up = new Node[nLevel - 1];
+                width = new int[nLevel - 1];
+            }
+        }
+
+        Node<T> next(int lv) {
+            return (lv == 0) ? next : up[lv - 1];
+        }
+
+        int width(int lv) {
+            return (lv == 0) ? 1 : width[lv - 1];
+        }
+
+        void link(int lv, Node<T> nd, int w) {
+            if(lv == 0)
+                next = nd;
+            else {
+                up[lv - 1] = nd;
+                width[lv - 1] = w;
+            }
         }
 
         @Override